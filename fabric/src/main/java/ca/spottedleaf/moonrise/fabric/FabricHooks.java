@@ -6,10 +6,12 @@ import com.mojang.datafixers.DSL;
 import com.mojang.datafixers.DataFixer;
 import com.mojang.serialization.Dynamic;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtOps;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.server.level.GenerationChunkHolder;
 import net.minecraft.server.level.ServerLevel;
@@ -104,6 +106,11 @@ public final class FabricHooks implements PlatformHooks {
 
     }
 
+    @Override
+    public boolean canSendPayload(final ServerPlayer player, final CustomPacketPayload.Type<?> type) {
+        return ServerPlayNetworking.canSend(player, type);
+    }
+
     @Override
     public void addToGetEntities(final Level world, final Entity entity, final AABB boundingBox, final Predicate<? super Entity> predicate,
                                  final List<Entity> into) {
@@ -171,6 +178,37 @@ public final class FabricHooks implements PlatformHooks {
         return ConfigHolder.getConfig().chunkSaving.maxAutoSaveChunksPerTick;
     }
 
+    @Override
+    public long configMaxAutoSaveTimePerTick(final ServerLevel world) {
+        return ConfigHolder.getConfig().chunkSaving.maxAutoSaveTimePerTick.getTimeNS();
+    }
+
+    @Override
+    public int configChunkSystemLockShift(final ServerLevel world) {
+        final Integer shift = ConfigHolder.getConfig().chunkSystem.lockShiftOverrides.get(world.dimension().location().toString());
+        return shift == null ? -1 : shift.intValue();
+    }
+
+    @Override
+    public boolean configMemoryPressureGovernor() {
+        return ConfigHolder.getConfig().memoryPressure.enabled;
+    }
+
+    @Override
+    public double configMemoryPressureElevatedThreshold() {
+        return ConfigHolder.getConfig().memoryPressure.elevatedThreshold;
+    }
+
+    @Override
+    public double configMemoryPressureCriticalThreshold() {
+        return ConfigHolder.getConfig().memoryPressure.criticalThreshold;
+    }
+
+    @Override
+    public long configMemoryPressureRecoveryTime() {
+        return ConfigHolder.getConfig().memoryPressure.recoveryTime.getTimeNS();
+    }
+
     @Override
     public boolean configFixMC159283() {
         return ConfigHolder.getConfig().bugFixes.fixMC159283;
@@ -0,0 +1,21 @@
+package ca.spottedleaf.moonrise.fabric;
+
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+
+public final class MoonriseFabric implements ModInitializer {
+
+    @Override
+    public void onInitialize() {
+        PayloadTypeRegistry.playS2C().register(ChunkCacheProtocol.ChunkReferencePayload.TYPE, ChunkCacheProtocol.ChunkReferencePayload.STREAM_CODEC);
+        PayloadTypeRegistry.playS2C().register(ChunkCacheProtocol.ChunkApplyPayload.TYPE, ChunkCacheProtocol.ChunkApplyPayload.STREAM_CODEC);
+        PayloadTypeRegistry.playS2C().register(ChunkCacheProtocol.ChunkDataPayload.TYPE, ChunkCacheProtocol.ChunkDataPayload.STREAM_CODEC);
+        PayloadTypeRegistry.playC2S().register(ChunkCacheProtocol.ChunkCacheResultPayload.TYPE, ChunkCacheProtocol.ChunkCacheResultPayload.STREAM_CODEC);
+
+        ServerPlayNetworking.registerGlobalReceiver(ChunkCacheProtocol.ChunkCacheResultPayload.TYPE, (payload, context) -> {
+            ChunkCacheProtocol.handleResult(context.player(), payload);
+        });
+    }
+}
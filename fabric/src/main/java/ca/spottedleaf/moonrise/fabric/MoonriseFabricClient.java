@@ -1,10 +1,13 @@
 package ca.spottedleaf.moonrise.fabric;
 
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import ca.spottedleaf.moonrise.patches.chunk_cache.client.ClientChunkCache;
 import ca.spottedleaf.moonrise.patches.command.MoonriseCommand;
 import com.mojang.brigadier.CommandDispatcher;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.commands.CommandBuildContext;
 
 public final class MoonriseFabricClient implements ClientModInitializer {
@@ -15,5 +18,14 @@ public final class MoonriseFabricClient implements ClientModInitializer {
         ClientCommandRegistrationCallback.EVENT.register((final CommandDispatcher<FabricClientCommandSource> commandDispatcher, final CommandBuildContext commandBuildContext) -> {
             MoonriseCommand.registerClient((CommandDispatcher)commandDispatcher);
         });
+        ClientPlayNetworking.registerGlobalReceiver(ChunkCacheProtocol.ChunkReferencePayload.TYPE, (payload, context) -> {
+            ClientChunkCache.get().handleReference(payload);
+        });
+        ClientPlayNetworking.registerGlobalReceiver(ChunkCacheProtocol.ChunkApplyPayload.TYPE, (payload, context) -> {
+            ClientChunkCache.get().handleApply(payload);
+        });
+        ClientPlayNetworking.registerGlobalReceiver(ChunkCacheProtocol.ChunkDataPayload.TYPE, (payload, context) -> {
+            ClientChunkCache.get().handleData(payload);
+        });
     }
 }
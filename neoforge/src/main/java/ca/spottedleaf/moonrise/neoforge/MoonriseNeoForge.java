@@ -1,8 +1,11 @@
 package ca.spottedleaf.moonrise.neoforge;
 
 import ca.spottedleaf.moonrise.common.config.MoonriseConfigScreen;
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import ca.spottedleaf.moonrise.patches.chunk_cache.client.ClientChunkCache;
 import ca.spottedleaf.moonrise.patches.command.MoonriseCommand;
 import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModLoadingContext;
 import net.neoforged.fml.common.Mod;
@@ -10,6 +13,8 @@ import net.neoforged.fml.event.lifecycle.FMLClientSetupEvent;
 import net.neoforged.neoforge.client.event.RegisterClientCommandsEvent;
 import net.neoforged.neoforge.client.gui.IConfigScreenFactory;
 import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 
 @Mod("moonrise")
 public final class MoonriseNeoForge {
@@ -24,5 +29,21 @@ public final class MoonriseNeoForge {
                 MoonriseCommand.registerClient((CommandDispatcher) commandsEvent.getDispatcher());
             });
         });
+        modBus.addListener(RegisterPayloadHandlersEvent.class, event -> {
+            // optional, so that vanilla clients and clients without Moonrise may still connect
+            final PayloadRegistrar registrar = event.registrar("3").optional();
+            registrar.playToClient(ChunkCacheProtocol.ChunkReferencePayload.TYPE, ChunkCacheProtocol.ChunkReferencePayload.STREAM_CODEC, (payload, context) -> {
+                ClientChunkCache.get().handleReference(payload);
+            });
+            registrar.playToClient(ChunkCacheProtocol.ChunkApplyPayload.TYPE, ChunkCacheProtocol.ChunkApplyPayload.STREAM_CODEC, (payload, context) -> {
+                ClientChunkCache.get().handleApply(payload);
+            });
+            registrar.playToClient(ChunkCacheProtocol.ChunkDataPayload.TYPE, ChunkCacheProtocol.ChunkDataPayload.STREAM_CODEC, (payload, context) -> {
+                ClientChunkCache.get().handleData(payload);
+            });
+            registrar.playToServer(ChunkCacheProtocol.ChunkCacheResultPayload.TYPE, ChunkCacheProtocol.ChunkCacheResultPayload.STREAM_CODEC, (payload, context) -> {
+                ChunkCacheProtocol.handleResult((ServerPlayer)context.player(), payload);
+            });
+        });
     }
 }
@@ -9,6 +9,7 @@ import com.mojang.serialization.Dynamic;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtOps;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.server.level.GenerationChunkHolder;
 import net.minecraft.server.level.ServerLevel;
@@ -111,6 +112,11 @@ public final class NeoForgeHooks implements PlatformHooks {
         EventHooks.fireChunkUnWatch(player, chunk, world);
     }
 
+    @Override
+    public boolean canSendPayload(final ServerPlayer player, final CustomPacketPayload.Type<?> type) {
+        return player.connection.hasChannel(type);
+    }
+
     @Override
     public void addToGetEntities(final Level world, final Entity entity, final AABB boundingBox, final Predicate<? super Entity> predicate,
                                  final List<Entity> into) {
@@ -198,6 +204,37 @@ public final class NeoForgeHooks implements PlatformHooks {
         return ConfigHolder.getConfig().chunkSaving.maxAutoSaveChunksPerTick;
     }
 
+    @Override
+    public long configMaxAutoSaveTimePerTick(final ServerLevel world) {
+        return ConfigHolder.getConfig().chunkSaving.maxAutoSaveTimePerTick.getTimeNS();
+    }
+
+    @Override
+    public int configChunkSystemLockShift(final ServerLevel world) {
+        final Integer shift = ConfigHolder.getConfig().chunkSystem.lockShiftOverrides.get(world.dimension().location().toString());
+        return shift == null ? -1 : shift.intValue();
+    }
+
+    @Override
+    public boolean configMemoryPressureGovernor() {
+        return ConfigHolder.getConfig().memoryPressure.enabled;
+    }
+
+    @Override
+    public double configMemoryPressureElevatedThreshold() {
+        return ConfigHolder.getConfig().memoryPressure.elevatedThreshold;
+    }
+
+    @Override
+    public double configMemoryPressureCriticalThreshold() {
+        return ConfigHolder.getConfig().memoryPressure.criticalThreshold;
+    }
+
+    @Override
+    public long configMemoryPressureRecoveryTime() {
+        return ConfigHolder.getConfig().memoryPressure.recoveryTime.getTimeNS();
+    }
+
     @Override
     public boolean configFixMC159283() {
         return ConfigHolder.getConfig().bugFixes.fixMC159283;
@@ -4,6 +4,7 @@ import com.mojang.datafixers.DSL;
 import com.mojang.datafixers.DataFixer;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.server.level.GenerationChunkHolder;
 import net.minecraft.server.level.ServerLevel;
@@ -55,6 +56,9 @@ public interface PlatformHooks {
 
     public void onChunkUnWatch(final ServerLevel world, final ChunkPos chunk, final ServerPlayer player);
 
+    // whether the player's client registered the specified payload
+    public boolean canSendPayload(final ServerPlayer player, final CustomPacketPayload.Type<?> type);
+
     public void addToGetEntities(final Level world, final Entity entity, final AABB boundingBox, final Predicate<? super Entity> predicate,
                                  final List<Entity> into);
 
@@ -84,6 +88,19 @@ public interface PlatformHooks {
 
     public int configMaxAutoSavePerTick(final ServerLevel world);
 
+    public long configMaxAutoSaveTimePerTick(final ServerLevel world);
+
+    // returns -1 if the world does not override the lock shift
+    public int configChunkSystemLockShift(final ServerLevel world);
+
+    public boolean configMemoryPressureGovernor();
+
+    public double configMemoryPressureElevatedThreshold();
+
+    public double configMemoryPressureCriticalThreshold();
+
+    public long configMemoryPressureRecoveryTime();
+
     public boolean configFixMC159283();
 
     // support for CB chunk mustNotSave
@@ -6,7 +6,23 @@ import ca.spottedleaf.moonrise.common.config.ui.ClothConfig;
 import ca.spottedleaf.moonrise.common.config.annotation.Serializable;
 import ca.spottedleaf.moonrise.common.config.type.Duration;
 import ca.spottedleaf.moonrise.common.util.MoonriseCommon;
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkLoadingProfile;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkPacketCache;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkSendBudget;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkSendPacer;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.DynamicViewDistance;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.IdlePowerMode;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.MonitoredAreaLock;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.PriorityAging;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.WorldExecutorShares;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkFullTask;
+import ca.spottedleaf.moonrise.patches.chunk_system.server.SpawnPreparation;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Adaptable
 public final class MoonriseConfig {
@@ -83,7 +99,7 @@ public final class MoonriseConfig {
         public Advanced advanced = new Advanced();
 
         @Adaptable
-        public static final class Advanced {
+        public static final class Advanced implements InitialiseHook {
 
             @Serializable(
                     comment = """
@@ -114,6 +130,57 @@ public final class MoonriseConfig {
                             """
             )
             public int playerMaxConcurrentChunkGenerates = 0;
+
+            @Serializable(
+                    comment = """
+                            Whether to adapt the chunk send rate of each player to the backpressure of their
+                            connection. The rate is halved when the connection's outbound buffer stays backed up
+                            while chunks are being sent, and is otherwise raised gradually back up to
+                            playerMaxSendRate.
+                            """
+            )
+            public boolean adaptiveSendRate = true;
+
+            @Serializable(
+                    comment = """
+                            The lowest rate, in chunks per second, that the adaptive send rate may lower a player to.
+                            """
+            )
+            public double playerMinSendRate = 5.0;
+
+            @Serializable(
+                    comment = """
+                            The maximum rate of chunks to send to all players combined, per second. The budget is split
+                            between players with pending sends, and the nearest chunks of every player are sent before
+                            the farther chunks of any single player. If this value is <= 0, then there is no server-wide
+                            limit.
+                            """
+            )
+            public double serverMaxSendRate = -1.0;
+
+            @Serializable(
+                    comment = """
+                            Whether to automatically lower the chunk footprint of idle players. AFK players keep their
+                            distances but are sent no new chunks, and spectators do not keep chunks ticking. Spectators
+                            only generate chunks if the spectatorsGenerateChunks gamerule allows it.
+                            """
+            )
+            public boolean automaticLoadingProfiles = false;
+
+            @Serializable(
+                    comment = """
+                            How long a player must go without input to be considered AFK. AFK players use the AFK loading profile if
+                            automatic loading profiles are enabled, and have their distances reduced first under load.
+                            """
+            )
+            public Duration afkTime = Duration.parse("5m");
+
+            @Override
+            public void initialise() {
+                ChunkSendPacer.init(this.adaptiveSendRate, this.playerMinSendRate);
+                ChunkSendBudget.init(this.serverMaxSendRate);
+                ChunkLoadingProfile.init(this.automaticLoadingProfiles, this.afkTime.getTimeNS());
+            }
         }
     }
 
@@ -137,6 +204,203 @@ public final class MoonriseConfig {
                         """
         )
         public int maxAutoSaveChunksPerTick = 12;
+
+        @Serializable(
+                comment = """
+                        The maximum amount of time to spend incrementally autosaving chunks each tick. The cost
+                        of each chunk is estimated from its entity, block entity and modified section counts
+                        using the time taken by previous saves. If the value is <= 0, then only the chunk count
+                        limit applies.
+                        """
+        )
+        public Duration maxAutoSaveTimePerTick = Duration.parse("2ms");
+    }
+
+    @Serializable(
+            comment = """
+                    Configuration options for the memory pressure governor. The governor samples the heap occupancy
+                    after garbage collection, and when it is high the chunk system will load and generate fewer
+                    chunks for players, unload chunks faster, and temporarily lower the effective view distance.
+                    """
+    )
+    public MemoryPressure memoryPressure = new MemoryPressure();
+
+    @Adaptable
+    public static final class MemoryPressure {
+
+        @Serializable(
+                comment = """
+                        Whether to throttle chunk loading and generation when the heap is close to full.
+                        """
+        )
+        public boolean enabled = false;
+
+        @Serializable(
+                comment = """
+                        The fraction of the maximum heap size in use after a garbage collection at which the
+                        governor starts throttling chunk loading and generation.
+                        """
+        )
+        public double elevatedThreshold = 0.80;
+
+        @Serializable(
+                comment = """
+                        The fraction of the maximum heap size in use after a garbage collection at which the
+                        governor throttles as hard as it can. Values between this and the elevated threshold
+                        select an intermediate throttling level.
+                        """
+        )
+        public double criticalThreshold = 0.95;
+
+        @Serializable(
+                comment = """
+                        How long the heap occupancy must stay below the current level's threshold before the
+                        governor relaxes by one level.
+                        """
+        )
+        public Duration recoveryTime = Duration.parse("15s");
+    }
+
+    @Serializable(
+            comment = """
+                    Configuration options for the idle mode of the chunk system. A world without players for the
+                    configured delay enters idle mode: it unloads every chunk without a ticket as fast as possible,
+                    flushes its region files, and stops incremental autosaving. Once every world is idle, the worker
+                    pool is shrunk. A player joining the world reverses this.
+                    """
+    )
+    public IdleMode idleMode = new IdleMode();
+
+    @Adaptable
+    public static final class IdleMode implements InitialiseHook {
+
+        @Serializable(
+                comment = """
+                        Whether worlds without players may enter idle mode.
+                        """
+        )
+        public boolean enabled = false;
+
+        @Serializable(
+                comment = """
+                        How long a world must be without players before it enters idle mode.
+                        """
+        )
+        public Duration delay = Duration.parse("5m");
+
+        @Serializable(
+                comment = """
+                        The number of worker threads to keep while every world is idle.
+                        """
+        )
+        public int workerThreads = 1;
+
+        @Override
+        public void initialise() {
+            IdlePowerMode.init(this.enabled, this.delay.getTimeTicks(), this.workerThreads);
+        }
+    }
+
+    @Serializable(
+            comment = """
+                    Automatically lowers the view and simulation distances of players while the server is overloaded.
+                    """
+    )
+    public DynamicDistance dynamicViewDistance = new DynamicDistance();
+
+    @Adaptable
+    public static final class DynamicDistance implements InitialiseHook {
+
+        @Serializable(
+                comment = """
+                        Whether to lower player view and simulation distances while the MSPT is above the target,
+                        or while most players are waiting on the chunk system to load or generate their chunks.
+                        AFK, spectating and fast moving players are lowered first.
+                        """
+        )
+        public boolean enabled = false;
+
+        @Serializable(
+                comment = """
+                        The MSPT above which distances are lowered.
+                        """
+        )
+        public double targetMspt = 45.0;
+
+        @Serializable(
+                comment = """
+                        The lowest view distance that players may be lowered to.
+                        """
+        )
+        public int minViewDistance = 4;
+
+        @Serializable(
+                comment = """
+                        The lowest simulation distance that players may be lowered to.
+                        """
+        )
+        public int minSimulationDistance = 3;
+
+        @Serializable(
+                comment = """
+                        How long the server must stay overloaded before distances are lowered by another step.
+                        """
+        )
+        public Duration reduceTime = Duration.parse("5s");
+
+        @Serializable(
+                comment = """
+                        How long the server must have headroom before distances are raised back by a step.
+                        """
+        )
+        public Duration recoveryTime = Duration.parse("30s");
+
+        @Override
+        public void initialise() {
+            DynamicViewDistance.init(
+                this.enabled, this.targetMspt, this.minViewDistance, this.minSimulationDistance,
+                this.reduceTime.getTimeNS(), this.recoveryTime.getTimeNS()
+            );
+        }
+    }
+
+    @Serializable(
+            comment = """
+                    Lets clients running Moonrise keep the chunks they receive in a cache on disk, so that a server
+                    running Moonrise only has to send chunks the client does not already have.
+                    """
+    )
+    public ChunkCache chunkCache = new ChunkCache();
+
+    @Adaptable
+    public static final class ChunkCache implements InitialiseHook {
+
+        @Serializable(
+                comment = """
+                        Whether the server offers the chunk cache to clients which support it.
+                        """
+        )
+        public boolean serverEnabled = false;
+
+        @Serializable(
+                comment = """
+                        Whether the client uses the chunk cache when the server offers it.
+                        """
+        )
+        public boolean clientEnabled = true;
+
+        @Serializable(
+                comment = """
+                        The maximum size of the client's chunk cache on disk, in megabytes. Least recently used chunks
+                        are removed once it is exceeded.
+                        """
+        )
+        public int maxDiskSize = 512;
+
+        @Override
+        public void initialise() {
+            ChunkCacheProtocol.init(this.serverEnabled, this.clientEnabled, (long)this.maxDiskSize * 1024L * 1024L);
+        }
     }
 
     @Serializable(
@@ -177,9 +441,28 @@ public final class MoonriseConfig {
         )
         public int ioThreads = -1;
 
+        @Serializable(
+                comment = """
+                        Per-world limits on the fraction of the worker and I/O threads that the chunk system of a world
+                        may occupy, keyed by dimension id (i.e "minecraft:overworld"). Values must be in [0, 1], and a
+                        world may always use at least one thread. Worlds without an entry are not limited.
+                        """
+        )
+        public Map<String, Double> worldLimits = new LinkedHashMap<>();
+
+        @Serializable(
+                comment = """
+                        Per-world reservations of the worker and I/O threads, keyed by dimension id. The fraction
+                        reserved by a loaded world is withheld from every other world, i.e reserving 0.5 for
+                        "minecraft:overworld" limits every other world to half of the threads.
+                        """
+        )
+        public Map<String, Double> worldReservations = new LinkedHashMap<>();
+
         @Override
         public void initialise() {
             MoonriseCommon.adjustWorkerThreads(this.workerThreads, this.ioThreads);
+            WorldExecutorShares.init(this.worldLimits, this.worldReservations);
         }
     }
 
@@ -191,10 +474,11 @@ public final class MoonriseConfig {
 
         @Serializable(
                 comment = """
-                        Whether to run generation population in parallel. By default this is set to false,
+                        Whether to run all generation population in parallel. By default this is set to false,
                         as mods affecting world gen are not safe to run in parallel. If you have no mods affecting
                         gen and are saturating the population generation (~10 threads of the worker pool generating
-                        chunks), you may set this to true to possibly increase generation speed.
+                        chunks), you may set this to true to possibly increase generation speed. See
+                        safePopulationGenParallelism for running only the known safe subset in parallel.
                         """
         )
         @ClothConfig(
@@ -204,9 +488,119 @@ public final class MoonriseConfig {
         )
         public boolean populationGenParallelism = false;
 
+        @Serializable(
+                comment = """
+                        Whether to run generation population in parallel only for chunks where every biome, placed
+                        feature, feature type and structure involved is considered safe by the allowlist and denylist
+                        below. Population of any other chunk runs exclusively. Has no effect if
+                        populationGenParallelism is true.
+                        """
+        )
+        @ClothConfig(
+                tooltip = "tooltip.moonrise.safepopulatorparallelism",
+                fieldKeyName = "option.moonrise.safepopulatorparallelism",
+                section = CHUNK_SYSTEM_SECTION
+        )
+        public boolean safePopulationGenParallelism = false;
+
+        @Serializable(
+                comment = """
+                        Ids considered safe for parallel population. An entry may be a namespace (i.e "minecraft"),
+                        which allows every id in that namespace, or a full id (i.e "minecraft:end_spike").
+                        """
+        )
+        public List<String> safePopulationAllowlist = new ArrayList<>(List.of("minecraft"));
+
+        @Serializable(
+                comment = """
+                        Ids which are never considered safe for parallel population, even if they match the
+                        allowlist. Entries use the same format as the allowlist.
+                        """
+        )
+        public List<String> safePopulationDenylist = new ArrayList<>();
+
+        @Serializable(
+                comment = """
+                        Whether to record the time spent waiting for and holding the chunk system's ticket and
+                        scheduling locks. The hottest lock regions of each world are shown by /moonrise debug.
+                        This adds a small cost to every lock operation.
+                        """
+        )
+        public boolean lockContentionMetrics = false;
+
+        @Serializable(
+                comment = """
+                        Per-world overrides for the chunk system lock shift, keyed by dimension id (i.e
+                        "minecraft:overworld"). Each lock covers (2^shift)x(2^shift) chunks. Overrides can only
+                        make locks coarser: the ticket level propagator requires that owning a position implies
+                        owning its entire ticket section (64x64 chunks), so values below 6 (or the region shift,
+                        if larger) are raised to it. Only applies to worlds loaded after the change.
+                        """
+        )
+        public Map<String, Integer> lockShiftOverrides = new LinkedHashMap<>();
+
+        @Serializable(
+                comment = """
+                        Whether to raise the priority of chunk generation and chunk I/O tasks which have been
+                        waiting for too long. This bounds the time that low priority work, such as far away
+                        generation or saving, may be starved by higher priority player loads.
+                        """
+        )
+        public boolean priorityAging = false;
+
+        @Serializable(
+                comment = """
+                        The time a task must wait before its priority is raised by one step. The wait restarts
+                        after every raise.
+                        """
+        )
+        public Duration priorityAgingThreshold = Duration.parse("10s");
+
+        @Serializable(
+                comment = """
+                        The highest priority that priority aging may raise a task to. Must be one of HIGHEST,
+                        HIGHER, HIGH, NORMAL, LOW, LOWER, LOWEST or IDLE.
+                        """
+        )
+        public String priorityAgingCeiling = "NORMAL";
+
+        @Serializable(
+                comment = """
+                        Whether to build chunks and create their vanilla block entities on the worker threads ahead of
+                        the transition to full status, leaving only the parts which affect the world to the main thread.
+                        """
+        )
+        public boolean prepareFullChunksOffMain = true;
+
+        @Serializable(
+                comment = """
+                        Whether to build chunk packets on the worker threads from a snapshot of the chunk taken by the
+                        main thread. Packets for chunks modified while their packet was building are rebuilt on the
+                        main thread.
+                        """
+        )
+        public boolean buildChunkPacketsOffMain = true;
+
+        @Serializable(
+                comment = """
+                        Whether server startup should only wait for the chunks new players spawn in, instead of the whole
+                        spawn area. The forced chunks of all dimensions are requested at once, and the rest of the spawn
+                        area finishes loading in the background after startup.
+                        """
+        )
+        public boolean asyncSpawnPreparation = true;
+
         @Override
         public void initialise() {
-            ChunkTaskScheduler.init(this.populationGenParallelism);
+            ChunkTaskScheduler.init(
+                this.populationGenParallelism, this.safePopulationGenParallelism,
+                this.safePopulationAllowlist, this.safePopulationDenylist
+            );
+            MonitoredAreaLock.setMetricsEnabled(this.lockContentionMetrics);
+            PriorityAging.init(this.priorityAging, this.priorityAgingThreshold.getTimeNS(), this.priorityAgingCeiling);
+            ChunkFullTask.setPrepareOffMain(this.prepareFullChunksOffMain);
+            ChunkPacketCache.setBuildOffMain(this.buildChunkPacketsOffMain);
+            SpawnPreparation.init(this.asyncSpawnPreparation);
         }
     }
 
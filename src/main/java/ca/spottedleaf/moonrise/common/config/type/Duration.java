@@ -17,6 +17,13 @@ public final class Duration {
             throw new IllegalArgumentException("Invalid duration: " + value);
         }
 
+        if (value.endsWith("ms")) {
+            final BigDecimal parsed = new BigDecimal(value.substring(0, value.length() - 2))
+                    .multiply(new BigDecimal(1000L * 1000L));
+
+            return new Duration(value, parsed.toBigInteger().longValueExact());
+        }
+
         final char last = value.charAt(value.length() - 1);
 
         final long multiplier;
@@ -43,7 +50,7 @@ public final class Duration {
                 break;
             }
             default: {
-                throw new IllegalArgumentException("Duration must end with one of: [s, t, m, h, d]");
+                throw new IllegalArgumentException("Duration must end with one of: [ms, s, t, m, h, d]");
             }
         }
 
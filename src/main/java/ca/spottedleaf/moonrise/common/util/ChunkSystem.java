@@ -4,6 +4,8 @@ import ca.spottedleaf.concurrentutil.util.Priority;
 import ca.spottedleaf.moonrise.common.PlatformHooks;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunk;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.AsyncTeleport;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkLoadingProfile;
 import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
 import ca.spottedleaf.moonrise.patches.chunk_system.world.ChunkSystemServerChunkCache;
 import ca.spottedleaf.moonrise.patches.chunk_tick_iteration.ChunkTickServerLevel;
@@ -17,8 +19,10 @@ import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.portal.TeleportTransition;
 import org.slf4j.Logger;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 public final class ChunkSystem {
@@ -160,6 +164,23 @@ public final class ChunkSystem {
         return RegionizedPlayerChunkLoader.getAPITickViewDistance(player);
     }
 
+    public static ChunkLoadingProfile getLoadingProfile(final ServerPlayer player) {
+        return RegionizedPlayerChunkLoader.getAPILoadingProfile(player);
+    }
+
+    public static void setLoadingProfile(final ServerPlayer player, final ChunkLoadingProfile profile) {
+        RegionizedPlayerChunkLoader.setAPILoadingProfile(player, profile);
+    }
+
+    public static void preloadTeleportDestination(final ServerLevel world, final double x, final double z, final int radius,
+                                                  final Runnable onLoad) {
+        AsyncTeleport.preload(world, x, z, radius, Priority.HIGHER, onLoad);
+    }
+
+    public static CompletableFuture<Entity> teleportAsync(final Entity entity, final TeleportTransition transition) {
+        return AsyncTeleport.teleportAsync(entity, transition);
+    }
+
     public static void addPlayerToDistanceMaps(final ServerLevel world, final ServerPlayer player) {
         ((ChunkSystemServerLevel)world).moonrise$getPlayerChunkLoader().addPlayer(player);
     }
@@ -37,7 +37,45 @@ public final class MoonriseCommon {
     public static final PrioritisedThreadPool.ExecutorGroup RADIUS_AWARE_GROUP = MoonriseCommon.WORKER_POOL.createExecutorGroup(SERVER_DIVISION, 0);
     public static final PrioritisedThreadPool.ExecutorGroup LOAD_GROUP         = MoonriseCommon.WORKER_POOL.createExecutorGroup(SERVER_DIVISION, 0);
 
-    public static void adjustWorkerThreads(final int configWorkerThreads, final int configIoThreads) {
+    private static volatile int workerThreadCount = 1;
+    private static volatile int ioThreadCount = 1;
+    // the number of worker threads to use while the server is idle, or 0 if it is not idle
+    private static volatile int idleWorkerThreads;
+
+    public static int getWorkerThreadCount() {
+        return workerThreadCount;
+    }
+
+    /**
+     * Returns the number of threads the worker pool currently runs, which is less than
+     * {@link #getWorkerThreadCount()} while the server is idle.
+     */
+    public static int getActiveWorkerThreadCount() {
+        final int idleThreads = idleWorkerThreads;
+        return idleThreads > 0 ? Math.min(idleThreads, workerThreadCount) : workerThreadCount;
+    }
+
+    public static int getIOThreadCount() {
+        return ioThreadCount;
+    }
+
+    public static synchronized void setWorkerPoolIdle(final boolean idle, final int threads) {
+        final int newIdleThreads = idle ? Math.min(threads, workerThreadCount) : 0;
+        if (newIdleThreads == idleWorkerThreads) {
+            return;
+        }
+        idleWorkerThreads = newIdleThreads;
+
+        WORKER_POOL.adjustThreadCount(idle ? newIdleThreads : workerThreadCount);
+
+        if (idle) {
+            LOGGER.info("Server is idle, reduced worker threads to " + newIdleThreads);
+        } else {
+            LOGGER.info("Server is no longer idle, restored worker threads to " + workerThreadCount);
+        }
+    }
+
+    public static synchronized void adjustWorkerThreads(final int configWorkerThreads, final int configIoThreads) {
         int defaultWorkerThreads = Runtime.getRuntime().availableProcessors() / 2;
         if (defaultWorkerThreads <= 4) {
             defaultWorkerThreads = defaultWorkerThreads <= 3 ? 1 : 2;
@@ -54,8 +92,10 @@ public final class MoonriseCommon {
 
         final int ioThreads = Math.max(1, configIoThreads);
 
-        WORKER_POOL.adjustThreadCount(workerThreads);
+        WORKER_POOL.adjustThreadCount(idleWorkerThreads > 0 ? Math.min(idleWorkerThreads, workerThreads) : workerThreads);
         IO_POOL.adjustThreadCount(ioThreads);
+        workerThreadCount = workerThreads;
+        ioThreadCount = ioThreads;
 
         LOGGER.info(PlatformHooks.get().getBrand() + " is using " + workerThreads + " worker threads, " + ioThreads + " I/O threads");
     }
@@ -79,6 +119,7 @@ public final class MoonriseCommon {
     );
     public static final long IO_QUEUE_HOLD_TIME = (long)(100.0e6); // 100ms
     public static final PrioritisedThreadPool.ExecutorGroup CLIENT_PROFILER_IO_GROUP = IO_POOL.createExecutorGroup(CLIENT_DIVISION, 0);
+    public static final PrioritisedThreadPool.ExecutorGroup CLIENT_CHUNK_CACHE_IO_GROUP = IO_POOL.createExecutorGroup(CLIENT_DIVISION, 0);
     public static final PrioritisedThreadPool.ExecutorGroup SERVER_REGION_IO_GROUP = IO_POOL.createExecutorGroup(SERVER_DIVISION, 0);
 
     public static void haltExecutors() {
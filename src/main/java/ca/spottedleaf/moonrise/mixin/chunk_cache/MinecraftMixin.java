@@ -0,0 +1,26 @@
+package ca.spottedleaf.moonrise.mixin.chunk_cache;
+
+import ca.spottedleaf.moonrise.patches.chunk_cache.client.ClientChunkCache;
+import net.minecraft.client.Minecraft;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Minecraft.class)
+abstract class MinecraftMixin {
+
+    /**
+     * @reason Halt the chunk cache I/O on shutdown
+     * @author Spottedleaf
+     */
+    @Inject(
+        method = "close",
+        at = @At(
+            value = "HEAD"
+        )
+    )
+    private void haltChunkCache(final CallbackInfo ci) {
+        ClientChunkCache.shutdown();
+    }
+}
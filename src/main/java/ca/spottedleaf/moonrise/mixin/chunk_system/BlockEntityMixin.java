@@ -0,0 +1,35 @@
+package ca.spottedleaf.moonrise.mixin.chunk_system;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.PreparedBlockEntities;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(BlockEntity.class)
+abstract class BlockEntityMixin {
+
+    /**
+     * @reason Use the block entity created off-main by the chunk system, if there is one for this tag
+     * @author Spottedleaf
+     * @see ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkFullTask
+     */
+    @Inject(
+        method = "loadStatic",
+        at = @At("HEAD"),
+        cancellable = true
+    )
+    private static void usePreparedBlockEntity(final BlockPos pos, final BlockState state, final CompoundTag tag,
+                                               final HolderLookup.Provider registries,
+                                               final CallbackInfoReturnable<BlockEntity> cir) {
+        final BlockEntity prepared = PreparedBlockEntities.takeCurrent(pos, state, tag);
+        if (prepared != null) {
+            cir.setReturnValue(prepared);
+        }
+    }
+}
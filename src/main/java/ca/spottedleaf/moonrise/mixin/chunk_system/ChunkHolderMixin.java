@@ -4,6 +4,7 @@ import ca.spottedleaf.moonrise.common.list.ReferenceList;
 import ca.spottedleaf.moonrise.common.util.WorldUtil;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemChunkHolder;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
@@ -27,6 +28,7 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -56,6 +58,17 @@ abstract class ChunkHolderMixin extends GenerationChunkHolder implements ChunkSy
     @Shadow
     private CompletableFuture<?> saveSync;
 
+    @Shadow
+    @Final
+    private BitSet skyChangedLightSectionFilter;
+
+    @Shadow
+    @Final
+    private BitSet blockChangedLightSectionFilter;
+
+    @Shadow
+    private boolean hasChangedSections;
+
     public ChunkHolderMixin(ChunkPos chunkPos) {
         super(chunkPos);
     }
@@ -309,6 +322,45 @@ abstract class ChunkHolderMixin extends GenerationChunkHolder implements ChunkSy
         return this.getChunkToSend();
     }
 
+    /**
+     * @reason Queue light changes in the player chunk loader instead of broadcasting a light packet per chunk,
+     *         so that light changed over several ticks or by a relight is sent once per player per tick. The light
+     *         of chunks with block changes is sent immediately, as Vanilla sends light before the block changes.
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "broadcastChanges",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void queueLightChanges(final LevelChunk chunk, final CallbackInfo ci) {
+        final boolean lightChanged = !this.skyChangedLightSectionFilter.isEmpty() || !this.blockChangedLightSectionFilter.isEmpty();
+        if (!lightChanged && !this.hasChangedSections) {
+            return;
+        }
+
+        final List<ServerPlayer> players = this.moonrise$getPlayers(true);
+        if (!players.isEmpty()) {
+            final RegionizedPlayerChunkLoader playerChunkLoader = ((ChunkSystemServerLevel)this.getChunkMap().level).moonrise$getPlayerChunkLoader();
+            if (lightChanged) {
+                for (int i = 0, len = players.size(); i < len; ++i) {
+                    playerChunkLoader.queueLightUpdate(
+                            players.get(i), this.pos.x, this.pos.z, this.skyChangedLightSectionFilter, this.blockChangedLightSectionFilter
+                    );
+                }
+            }
+            if (this.hasChangedSections) {
+                // the client must not receive block changes before the light of the sections they were made in
+                playerChunkLoader.flushLightUpdates(players, this.pos.x, this.pos.z);
+            }
+        }
+
+        // Vanilla skips the light packet with empty filters
+        this.skyChangedLightSectionFilter.clear();
+        this.blockChangedLightSectionFilter.clear();
+    }
+
     /**
      * @reason Redirect player retrieval to the sent player list, as we do not maintain the Vanilla hook
      * @author Spottedleaf
@@ -0,0 +1,95 @@
+package ca.spottedleaf.moonrise.mixin.chunk_system;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkPacketSnapshot;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkPacketData;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Mixin(ClientboundLevelChunkPacketData.class)
+abstract class ClientboundLevelChunkPacketDataMixin {
+
+    @Shadow
+    @Final
+    private List<ClientboundLevelChunkPacketData.BlockEntityInfo> blockEntitiesData;
+
+    /**
+     * @reason Read the heightmaps from the snapshot when the packet is built off-main
+     * @author Spottedleaf
+     */
+    @Redirect(
+            method = "<init>(Lnet/minecraft/world/level/chunk/LevelChunk;)V",
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/world/level/chunk/LevelChunk;getHeightmaps()Ljava/util/Collection;"
+            )
+    )
+    private Collection<Map.Entry<Heightmap.Types, Heightmap>> snapshotHeightmaps(final LevelChunk chunk) {
+        final ChunkPacketSnapshot snapshot = ChunkPacketSnapshot.getCurrent(chunk);
+        return snapshot == null ? chunk.getHeightmaps() : snapshot.getHeightmaps();
+    }
+
+    /**
+     * @reason Skip the live block entities when the packet is built off-main, their data was already created from
+     *         the snapshot and is added once the constructor returns
+     * @author Spottedleaf
+     */
+    @Redirect(
+            method = "<init>(Lnet/minecraft/world/level/chunk/LevelChunk;)V",
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/world/level/chunk/LevelChunk;getBlockEntities()Ljava/util/Map;"
+            )
+    )
+    private Map<BlockPos, BlockEntity> snapshotBlockEntities(final LevelChunk chunk) {
+        return ChunkPacketSnapshot.getCurrent(chunk) == null ? chunk.getBlockEntities() : Map.of();
+    }
+
+    /**
+     * @reason See above
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "<init>(Lnet/minecraft/world/level/chunk/LevelChunk;)V",
+            at = @At(
+                    value = "RETURN"
+            )
+    )
+    private void addSnapshotBlockEntities(final LevelChunk chunk, final CallbackInfo ci) {
+        final ChunkPacketSnapshot snapshot = ChunkPacketSnapshot.getCurrent(chunk);
+        if (snapshot != null) {
+            this.blockEntitiesData.addAll(snapshot.getBlockEntities());
+        }
+    }
+
+    /**
+     * @reason Size and write the sections of the snapshot when the packet is built off-main
+     * @author Spottedleaf
+     */
+    @Redirect(
+            method = {
+                    "calculateChunkSize",
+                    "extractChunkData"
+            },
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/world/level/chunk/LevelChunk;getSections()[Lnet/minecraft/world/level/chunk/LevelChunkSection;"
+            )
+    )
+    private static LevelChunkSection[] snapshotSections(final LevelChunk chunk) {
+        final ChunkPacketSnapshot snapshot = ChunkPacketSnapshot.getCurrent(chunk);
+        return snapshot == null ? chunk.getSections() : snapshot.getSections();
+    }
+}
@@ -1,13 +1,22 @@
 package ca.spottedleaf.moonrise.mixin.chunk_system;
 
+import ca.spottedleaf.concurrentutil.util.Priority;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkData;
 import ca.spottedleaf.moonrise.patches.chunk_system.entity.ChunkSystemEntity;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.AsyncTeleport;
 import com.google.common.collect.ImmutableList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.FullChunkStatus;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.NetherPortalBlock;
+import net.minecraft.world.level.block.Portal;
+import net.minecraft.world.level.dimension.DimensionType;
 import net.minecraft.world.phys.Vec3;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -65,6 +74,12 @@ abstract class EntityMixin implements ChunkSystemEntity {
     @Unique
     private boolean updatingSectionStatus;
 
+    @Unique
+    private long portalPreloadPos = Long.MIN_VALUE;
+
+    @Unique
+    private int portalPreloadTick;
+
     @Override
     public final boolean moonrise$isHardColliding() {
         return this.isHardColliding;
@@ -198,6 +213,43 @@ abstract class EntityMixin implements ChunkSystemEntity {
         instance.forEach(consumer);
     }
 
+    /**
+     * @reason Start loading the destination of a nether portal while the player waits inside it, as the
+     *         destination is only searched for synchronously once the portal wait time has passed
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "setAsInsidePortal",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void preloadPortalDestination(final Portal portal, final BlockPos pos, final CallbackInfo ci) {
+        if (!((Object)this instanceof ServerPlayer player) || !(portal instanceof NetherPortalBlock)) {
+            return;
+        }
+
+        final ServerLevel from = player.serverLevel();
+        final MinecraftServer server = from.getServer();
+        final int tick = server.getTickCount();
+        // setAsInsidePortal is invoked every tick the player is inside the portal
+        if (this.portalPreloadPos == pos.asLong() && (long)(tick - this.portalPreloadTick) < AsyncTeleport.TELEPORT.timeout) {
+            return;
+        }
+        this.portalPreloadPos = pos.asLong();
+        this.portalPreloadTick = tick;
+
+        final ServerLevel to = server.getLevel(from.dimension() == Level.NETHER ? Level.OVERWORLD : Level.NETHER);
+        if (to == null || !server.isLevelEnabled(to)) {
+            return;
+        }
+
+        final double scale = DimensionType.getTeleportationScale(from.dimensionType(), to.dimensionType());
+        final BlockPos destination = to.getWorldBorder().clampToBounds((double)pos.getX() * scale, (double)pos.getY(), (double)pos.getZ() * scale);
+
+        AsyncTeleport.preload(to, (double)destination.getX(), (double)destination.getZ(), AsyncTeleport.getCoreRadius(player), Priority.HIGHER, null);
+    }
+
     /**
      * @reason We should not save entities with any player passengers
      * @author Spottedleaf
@@ -1,8 +1,10 @@
 package ca.spottedleaf.moonrise.mixin.chunk_system;
 
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunk;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.PreparedBlockEntities;
 import ca.spottedleaf.moonrise.patches.chunk_system.ticks.ChunkSystemLevelChunkTicks;
 import net.minecraft.core.Registry;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
 import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
@@ -50,6 +52,15 @@ abstract class LevelChunkMixin extends ChunkAccess implements ChunkSystemLevelCh
     @Unique
     private ServerChunkCache.ChunkAndHolder chunkAndHolder;
 
+    @Unique
+    private PreparedBlockEntities preparedBlockEntities;
+
+    @Unique
+    private volatile ClientboundLevelChunkWithLightPacket cachedChunkPacket;
+
+    @Unique
+    private volatile int chunkPacketVersion;
+
     @Override
     public final boolean moonrise$isPostProcessingDone() {
         return this.postProcessingDone;
@@ -65,6 +76,53 @@ abstract class LevelChunkMixin extends ChunkAccess implements ChunkSystemLevelCh
         this.chunkAndHolder = holder;
     }
 
+    @Override
+    public final void moonrise$setPreparedBlockEntities(final PreparedBlockEntities prepared) {
+        this.preparedBlockEntities = prepared;
+    }
+
+    @Override
+    public final PreparedBlockEntities moonrise$takePreparedBlockEntities() {
+        final PreparedBlockEntities ret = this.preparedBlockEntities;
+        this.preparedBlockEntities = null;
+        return ret;
+    }
+
+    @Override
+    public final ClientboundLevelChunkWithLightPacket moonrise$getCachedChunkPacket() {
+        return this.cachedChunkPacket;
+    }
+
+    @Override
+    public final void moonrise$setCachedChunkPacket(final ClientboundLevelChunkWithLightPacket packet) {
+        this.cachedChunkPacket = packet;
+    }
+
+    @Override
+    public final int moonrise$getChunkPacketVersion() {
+        return this.chunkPacketVersion;
+    }
+
+    /**
+     * @reason Drop the cached chunk packet on any change to the chunk, and invalidate any packet being built from
+     *         an older snapshot. Block, block entity and biome changes mark the chunk unsaved, and so do light
+     *         changes through ChunkHolder#sectionLightChanged.
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "markUnsaved",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void dropCachedChunkPacket(final CallbackInfo ci) {
+        // only needs to differ from the version recorded by a snapshot, so lost increments do not matter
+        ++this.chunkPacketVersion;
+        if (this.cachedChunkPacket != null) {
+            this.cachedChunkPacket = null;
+        }
+    }
+
     /**
      * @reason Hook to set {@link #postProcessingDone} to {@code true} when post-processing completes to avoid invoking
      *         this function many times by the player chunk loader.
@@ -0,0 +1,115 @@
+package ca.spottedleaf.moonrise.mixin.chunk_system;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunkSection;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemPalettedContainer;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.SectionSerializationCache;
+import com.llamalad7.mixinextras.sugar.Local;
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+@Mixin(LevelChunkSection.class)
+abstract class LevelChunkSectionMixin implements ChunkSystemLevelChunkSection {
+
+    @Shadow
+    @Final
+    public PalettedContainer<BlockState> states;
+
+    @Shadow
+    public abstract LevelChunkSection copy();
+
+    @Shadow
+    public abstract PalettedContainerRO<Holder<Biome>> getBiomes();
+
+    @Unique
+    private volatile boolean snapshotting;
+
+    @Unique
+    private volatile boolean isSnapshot;
+
+    // shared between the live section and its snapshots, see SectionSerializationCache for when its tags are valid
+    @Unique
+    private volatile SectionSerializationCache serializationCache;
+
+    @Override
+    public final LevelChunkSection moonrise$snapshot() {
+        final LevelChunkSection ret;
+        this.snapshotting = true;
+        try {
+            ret = this.copy();
+        } finally {
+            this.snapshotting = false;
+        }
+
+        SectionSerializationCache cache = this.serializationCache;
+        if (cache == null) {
+            this.serializationCache = cache = new SectionSerializationCache();
+        }
+        ((LevelChunkSectionMixin)(Object)ret).isSnapshot = true;
+        ((LevelChunkSectionMixin)(Object)ret).serializationCache = cache;
+
+        return ret;
+    }
+
+    @Override
+    public final SectionSerializationCache moonrise$getSerializationCache() {
+        return this.isSnapshot ? this.serializationCache : null;
+    }
+
+    @Override
+    public final boolean moonrise$isSerializationDirty() {
+        final SectionSerializationCache cache = this.serializationCache;
+        return cache == null || cache.getBlockStates(this.states.data) == null || cache.getBiomes(this.getBiomes()) == null;
+    }
+
+    /**
+     * @reason Share the block container with the snapshot instead of copying it, the copy is instead made on the next write
+     * @author Spottedleaf
+     */
+    @Redirect(
+            method = "<init>(Lnet/minecraft/world/level/chunk/LevelChunkSection;)V",
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/world/level/chunk/PalettedContainer;copy()Lnet/minecraft/world/level/chunk/PalettedContainer;"
+            )
+    )
+    private PalettedContainer<BlockState> snapshotStates(final PalettedContainer<BlockState> states,
+                                                         @Local(ordinal = 0, argsOnly = true) final LevelChunkSection from) {
+        if (!((LevelChunkSectionMixin)(Object)from).snapshotting) {
+            return states.copy();
+        }
+
+        // share the contents rather than the container, as callers may hold onto the container of the live section
+        return ((ChunkSystemPalettedContainer<BlockState>)states).moonrise$share();
+    }
+
+    /**
+     * @reason Share the biome container with the snapshot instead of copying it. Biome containers are never written to
+     *         in place on the server, they are replaced (see fillBiomesFromNoise), so no copy is ever needed.
+     * @author Spottedleaf
+     */
+    @Redirect(
+            method = "<init>(Lnet/minecraft/world/level/chunk/LevelChunkSection;)V",
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/world/level/chunk/PalettedContainerRO;copy()Lnet/minecraft/world/level/chunk/PalettedContainer;"
+            )
+    )
+    private PalettedContainer<Holder<Biome>> snapshotBiomes(final PalettedContainerRO<Holder<Biome>> biomes,
+                                                            @Local(ordinal = 0, argsOnly = true) final LevelChunkSection from) {
+        if (((LevelChunkSectionMixin)(Object)from).snapshotting && biomes instanceof PalettedContainer<Holder<Biome>> container) {
+            return container;
+        }
+
+        return biomes.copy();
+    }
+}
@@ -4,13 +4,16 @@ import ca.spottedleaf.moonrise.common.util.MoonriseCommon;
 import ca.spottedleaf.moonrise.patches.chunk_system.io.MoonriseRegionFileIO;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.server.ChunkSystemMinecraftServer;
+import ca.spottedleaf.moonrise.patches.chunk_system.server.SpawnPreparation;
 import net.minecraft.commands.CommandSource;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.ServerInfo;
 import net.minecraft.server.ServerTickRateManager;
 import net.minecraft.server.TickTask;
 import net.minecraft.server.dedicated.DedicatedServer;
+import net.minecraft.server.level.ServerChunkCache;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.progress.ChunkProgressListener;
 import net.minecraft.util.thread.ReentrantBlockableEventLoop;
 import org.slf4j.Logger;
 import org.spongepowered.asm.mixin.Final;
@@ -22,6 +25,7 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -70,12 +74,54 @@ abstract class MinecraftServerMixin extends ReentrantBlockableEventLoop<TickTask
     private long lastMidTickExecuteFailure;
 
     @Unique
-    private boolean tickMidTickTasks() {
+    private static final long MIN_MID_TICK_BUDGET = 500L * 1000L; // 0.5ms
+    @Unique
+    private static final double MID_TICK_BUDGET_FRACTION = 0.5;
+
+    @Unique
+    private long midTickTickStart = System.nanoTime();
+    @Unique
+    private long midTickTimeUsed;
+
+    /**
+     * @reason Reset the mid-tick chunk task budget at the start of each tick
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "tickServer",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void resetMidTickBudget(final CallbackInfo ci) {
+        this.midTickTickStart = System.nanoTime();
+        this.midTickTimeUsed = 0L;
+    }
+
+    @Unique
+    private long getMidTickBudget(final long currTime) {
+        // allow chunk tasks to use a fraction of whatever is left of this tick, so that a burst of chunk work
+        // (i.e. many players logging in) is spread over several ticks rather than spiking a single one.
+        // the minimum is always granted, even once the tick is over its time: under sustained lag Vanilla does not
+        // poll chunk tasks between ticks either, and main thread chunk tasks must not starve
+        final long headroom = this.tickRateManager.nanosecondsPerTick() - (currTime - this.midTickTickStart);
+        if (headroom <= MIN_MID_TICK_BUDGET) {
+            return MIN_MID_TICK_BUDGET;
+        }
+        return Math.min(headroom, Math.max(MIN_MID_TICK_BUDGET, (long)((double)headroom * MID_TICK_BUDGET_FRACTION)));
+    }
+
+    @Unique
+    private boolean tickMidTickTasks(final long deadline) {
         // give all worlds a fair chance at by targeting them all.
         // if we execute too many tasks, that's fine - we have logic to correctly handle overuse of allocated time.
         boolean executed = false;
         for (final ServerLevel world : this.getAllLevels()) {
             long currTime = System.nanoTime();
+            if (currTime - deadline >= 0L) {
+                // a single task may take a while, so stop between tasks once the budget is used up
+                break;
+            }
             if (currTime - ((ChunkSystemServerLevel)world).moonrise$getLastMidTickFailure() <= TASK_EXECUTION_FAILURE_BACKOFF) {
                 continue;
             }
@@ -99,16 +145,25 @@ abstract class MinecraftServerMixin extends ReentrantBlockableEventLoop<TickTask
             return;
         }
 
+        final long remainingBudget = this.getMidTickBudget(startTime) - this.midTickTimeUsed;
+        if (remainingBudget <= 0L) {
+            // out of budget for this tick, the remaining tasks stay queued (in priority order) for the next tick
+            return;
+        }
+        final long deadline = startTime + remainingBudget;
+
         for (;;) {
-            final boolean moreTasks = this.tickMidTickTasks();
+            final boolean moreTasks = this.tickMidTickTasks(deadline);
             final long currTime = System.nanoTime();
             final long diff = currTime - startTime;
 
-            if (!moreTasks || diff >= MAX_CHUNK_EXEC_TIME) {
+            if (!moreTasks || diff >= MAX_CHUNK_EXEC_TIME || currTime - deadline >= 0L) {
                 if (!moreTasks) {
                     this.lastMidTickExecuteFailure = currTime;
                 }
 
+                this.midTickTimeUsed += diff;
+
                 // note: negative values reduce the time
                 long overuse = diff - MAX_CHUNK_EXEC_TIME;
                 if (overuse >= (10L * 1000L * 1000L)) { // 10ms
@@ -153,6 +208,44 @@ abstract class MinecraftServerMixin extends ReentrantBlockableEventLoop<TickTask
     }
 
 
+    @Unique
+    private AtomicBoolean spawnJoinAreaReady;
+
+    /**
+     * @reason Request the startup chunks of all worlds at once, instead of the forced chunks of other worlds
+     *         only once the overworld spawn area is ready
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "prepareLevels",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void startSpawnPreparation(final ChunkProgressListener listener, final CallbackInfo ci) {
+        this.spawnJoinAreaReady = SpawnPreparation.isEnabled() ? SpawnPreparation.start((MinecraftServer)(Object)this) : null;
+    }
+
+    /**
+     * @reason Only wait for the chunks which new players spawn in, the rest of the spawn area finishes loading
+     *         after startup
+     * @author Spottedleaf
+     */
+    @Redirect(
+            method = "prepareLevels",
+            at = @At(
+                    value = "INVOKE",
+                    target = "Lnet/minecraft/server/level/ServerChunkCache;getTickingGenerated()I"
+            )
+    )
+    private int awaitJoinAreaOnly(final ServerChunkCache instance) {
+        final AtomicBoolean ready = this.spawnJoinAreaReady;
+        if (ready == null) {
+            return instance.getTickingGenerated();
+        }
+        return ready.get() ? Integer.MAX_VALUE : 0;
+    }
+
     /**
      * @reason Force response to chunk system crash
      * @author Spottedleaf
@@ -0,0 +1,111 @@
+package ca.spottedleaf.moonrise.mixin.chunk_system;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemPalettedContainer;
+import ca.spottedleaf.moonrise.patches.fast_palette.FastPalette;
+import ca.spottedleaf.moonrise.patches.fast_palette.FastPaletteData;
+import net.minecraft.core.IdMap;
+import net.minecraft.world.level.chunk.PaletteResize;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(PalettedContainer.class)
+abstract class PalettedContainerMixin<T> implements PaletteResize<T>, PalettedContainerRO<T>, ChunkSystemPalettedContainer<T> {
+
+    @Shadow
+    @Final
+    private IdMap<T> registry;
+
+    @Shadow
+    @Final
+    private PalettedContainer.Strategy strategy;
+
+    @Shadow
+    private volatile PalettedContainer.Data<T> data;
+
+    @Shadow
+    protected abstract PalettedContainer.Data<T> createOrReuseData(@Nullable final PalettedContainer.Data<T> data, final int bits);
+
+    @Unique
+    private volatile boolean dataShared;
+
+    @Override
+    public final PalettedContainer<T> moonrise$share() {
+        final PalettedContainer.Data<T> data = this.data;
+        final PalettedContainer<T> ret = new PalettedContainer<>(
+            this.registry, data.palette().valueFor(data.storage().get(0)), this.strategy
+        );
+        ((PalettedContainerMixin<T>)(Object)ret).data = data;
+        this.dataShared = true;
+
+        return ret;
+    }
+
+    @Override
+    public final boolean moonrise$unshare() {
+        if (!this.dataShared) {
+            return false;
+        }
+        this.dataShared = false;
+
+        final PalettedContainer.Data<T> data = this.data;
+        final PalettedContainer.Data<T> copy = this.createOrReuseData(null, data.storage().getBits());
+        copy.copyFrom(data.palette(), data.storage());
+        ((FastPaletteData<T>)(Object)copy).moonrise$setPalette(
+            ((FastPalette<T>)copy.palette()).moonrise$getRawPalette((FastPaletteData<T>)(Object)copy)
+        );
+        this.data = copy;
+
+        return true;
+    }
+
+    /**
+     * @reason Copy the palette and storage before writing if they are shared with a snapshot
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "getAndSet(ILjava/lang/Object;)Ljava/lang/Object;",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void copyOnGetAndSet(final CallbackInfoReturnable<T> cir) {
+        this.moonrise$unshare();
+    }
+
+    /**
+     * @reason Copy the palette and storage before writing if they are shared with a snapshot
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "set(ILjava/lang/Object;)V",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void copyOnSet(final CallbackInfo ci) {
+        this.moonrise$unshare();
+    }
+
+    /**
+     * @reason Copy the palette and storage before reading into them if they are shared with a snapshot
+     * @author Spottedleaf
+     */
+    @Inject(
+            method = "read",
+            at = @At(
+                    value = "HEAD"
+            )
+    )
+    private void copyOnRead(final CallbackInfo ci) {
+        this.moonrise$unshare();
+    }
+}
@@ -0,0 +1,37 @@
+package ca.spottedleaf.moonrise.mixin.chunk_system;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.network.PlayerChunkSender;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import java.util.BitSet;
+
+@Mixin(PlayerChunkSender.class)
+abstract class PlayerChunkSenderMixin {
+
+    /**
+     * @reason Share the chunk packet between every player the chunk is sent to. The player chunk loader sends
+     *         chunks through this method, after it places the packet it built (possibly off-main) in the cache
+     * @author Spottedleaf
+     * @see ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkPacketCache
+     */
+    @Redirect(
+            method = "sendChunk",
+            at = @At(
+                    value = "NEW",
+                    target = "(Lnet/minecraft/world/level/chunk/LevelChunk;Lnet/minecraft/world/level/lighting/LevelLightEngine;Ljava/util/BitSet;Ljava/util/BitSet;)Lnet/minecraft/network/protocol/game/ClientboundLevelChunkWithLightPacket;"
+            )
+    )
+    private static ClientboundLevelChunkWithLightPacket useCachedPacket(final LevelChunk chunk, final LevelLightEngine lightEngine,
+                                                                        final BitSet skyLight, final BitSet blockLight) {
+        if (skyLight != null || blockLight != null) {
+            return new ClientboundLevelChunkWithLightPacket(chunk, lightEngine, skyLight, blockLight);
+        }
+        return ((ChunkSystemServerLevel)(ServerLevel)chunk.getLevel()).moonrise$getPlayerChunkLoader().getChunkPacketCache().getOrCreatePacket(chunk);
+    }
+}
@@ -1,16 +1,34 @@
 package ca.spottedleaf.moonrise.mixin.chunk_system;
 
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunkSection;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.SectionSerializationCache;
+import com.llamalad7.mixinextras.sugar.Local;
+import com.mojang.serialization.Codec;
+import net.minecraft.core.Holder;
 import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
 import net.minecraft.world.entity.ai.village.poi.PoiManager;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
 import net.minecraft.world.level.chunk.storage.SerializableChunkData;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Redirect;
 
 @Mixin(SerializableChunkData.class)
 abstract class SerializableChunkDataMixin {
 
+    @Shadow
+    @Final
+    private static Codec<PalettedContainer<BlockState>> BLOCK_STATE_CODEC;
+
     /**
      * @reason Chunk system handles this during full transition
      * @author Spottedleaf
@@ -25,4 +43,53 @@ abstract class SerializableChunkDataMixin {
     )
     private void skipConsistencyCheck(final PoiManager instance, final SectionPos sectionPos, final LevelChunkSection levelChunkSection) {}
 
+    /**
+     * @reason Reuse the serialized block and biome containers of sections which have not changed since the
+     *         last save, and only encode the rest. We write the containers ourselves and hide the section from
+     *         Vanilla so that it skips encoding them.
+     * @author Spottedleaf
+     */
+    @Redirect(
+        method = "write",
+        at = @At(
+            value = "FIELD",
+            target = "Lnet/minecraft/world/level/chunk/storage/SerializableChunkData$SectionData;chunkSection:Lnet/minecraft/world/level/chunk/LevelChunkSection;",
+            ordinal = 0
+        )
+    )
+    private LevelChunkSection writeCachedSection(final SerializableChunkData.SectionData sectionData,
+                                                 @Local(ordinal = 0, argsOnly = false) final Codec<PalettedContainerRO<Holder<Biome>>> biomeCodec,
+                                                 @Local(ordinal = 1, argsOnly = false) final CompoundTag sectionNBT) {
+        final LevelChunkSection section = sectionData.chunkSection();
+        if (section == null) {
+            return null;
+        }
+
+        final SectionSerializationCache cache = ((ChunkSystemLevelChunkSection)section).moonrise$getSerializationCache();
+
+        // the snapshot shares its containers with the live section, so they identify the contents that were encoded
+        final Object statesData = section.getStates().data;
+        Tag blockStates = cache == null ? null : cache.getBlockStates(statesData);
+        if (blockStates == null) {
+            blockStates = BLOCK_STATE_CODEC.encodeStart(NbtOps.INSTANCE, section.getStates()).getOrThrow();
+            if (cache != null) {
+                cache.setBlockStates(statesData, blockStates);
+            }
+        }
+
+        final PalettedContainerRO<Holder<Biome>> biomeContainer = section.getBiomes();
+        Tag biomes = cache == null ? null : cache.getBiomes(biomeContainer);
+        if (biomes == null) {
+            biomes = biomeCodec.encodeStart(NbtOps.INSTANCE, biomeContainer).getOrThrow();
+            if (cache != null) {
+                cache.setBiomes(biomeContainer, biomes);
+            }
+        }
+
+        // the cached tags are shared with later saves, nothing writing the chunk data modifies the section tags
+        sectionNBT.put("block_states", blockStates);
+        sectionNBT.put("biomes", biomes);
+
+        return null;
+    }
 }
@@ -15,6 +15,7 @@ import ca.spottedleaf.moonrise.patches.chunk_system.level.entity.server.ServerEn
 import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.WorldExecutorShares;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ThreadedTicketLevelPropagator;
 import ca.spottedleaf.moonrise.patches.chunk_system.server.ChunkSystemMinecraftServer;
@@ -161,6 +162,7 @@ abstract class ServerLevelMixin extends Level implements ChunkSystemServerLevel,
         );
         this.poiDataController = new PoiDataController((ServerLevel)(Object)this, this.chunkTaskScheduler);
         this.chunkDataController = new ChunkDataController((ServerLevel)(Object)this, this.chunkTaskScheduler);
+        WorldExecutorShares.register(this.chunkTaskScheduler);
     }
 
     @Override
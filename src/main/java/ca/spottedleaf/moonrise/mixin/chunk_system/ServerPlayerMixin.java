@@ -1,5 +1,6 @@
 package ca.spottedleaf.moonrise.mixin.chunk_system;
 
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkLoadingProfile;
 import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkSystemServerPlayer;
 import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
 import com.mojang.authlib.GameProfile;
@@ -28,6 +29,9 @@ abstract class ServerPlayerMixin extends Player implements ChunkSystemServerPlay
     @Unique
     private RegionizedPlayerChunkLoader.ViewDistanceHolder viewDistanceHolder = new RegionizedPlayerChunkLoader.ViewDistanceHolder();
 
+    @Unique
+    private ChunkLoadingProfile loadingProfileOverride;
+
     @Override
     public final boolean moonrise$isRealPlayer() {
         return this.isRealPlayer;
@@ -53,6 +57,16 @@ abstract class ServerPlayerMixin extends Player implements ChunkSystemServerPlay
         return this.viewDistanceHolder;
     }
 
+    @Override
+    public final ChunkLoadingProfile moonrise$getLoadingProfileOverride() {
+        return this.loadingProfileOverride;
+    }
+
+    @Override
+    public final void moonrise$setLoadingProfileOverride(final ChunkLoadingProfile profile) {
+        this.loadingProfileOverride = profile;
+    }
+
     /**
      * @reason Copy player state when respawning
      * @author Spottedleaf
@@ -66,5 +80,6 @@ abstract class ServerPlayerMixin extends Player implements ChunkSystemServerPlay
     private void copyRealPlayer(ServerPlayer from, boolean bl, CallbackInfo ci) {
         this.isRealPlayer = ((ServerPlayerMixin)(Object)from).isRealPlayer;
         this.viewDistanceHolder = ((ServerPlayerMixin)(Object)from).viewDistanceHolder;
+        this.loadingProfileOverride = ((ServerPlayerMixin)(Object)from).loadingProfileOverride;
     }
 }
@@ -26,26 +26,26 @@ abstract class TicketMixin<T> implements ChunkSystemTicket<T>, Comparable<Ticket
 
 
     @Unique
-    private long removeDelay;
+    private long expireTick;
 
     @Override
-    public final long moonrise$getRemoveDelay() {
-        return this.removeDelay;
+    public final long moonrise$getExpireTick() {
+        return this.expireTick;
     }
 
     @Override
-    public final void moonrise$setRemoveDelay(final long removeDelay) {
-        this.removeDelay = removeDelay;
+    public final void moonrise$setExpireTick(final long expireTick) {
+        this.expireTick = expireTick;
     }
 
     /**
-     * @reason Change debug to include remove delay
+     * @reason Change debug to include expire tick
      * @author Spottedleaf
      */
     @Overwrite
     @Override
     public String toString() {
-        return "Ticket[" + this.type + " " + this.ticketLevel + " (" + this.key + ")] to die in " + this.removeDelay;
+        return "Ticket[" + this.type + " " + this.ticketLevel + " (" + this.key + ")] to die at tick " + this.expireTick;
     }
 
     /**
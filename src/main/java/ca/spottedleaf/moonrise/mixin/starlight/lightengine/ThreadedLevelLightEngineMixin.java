@@ -2,19 +2,17 @@ package ca.spottedleaf.moonrise.mixin.starlight.lightengine;
 
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemChunkHolder;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
 import ca.spottedleaf.moonrise.patches.starlight.light.StarLightInterface;
 import ca.spottedleaf.moonrise.patches.starlight.light.StarLightLightingProvider;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.SectionPos;
-import net.minecraft.network.protocol.Packet;
-import net.minecraft.network.protocol.game.ClientboundLightUpdatePacket;
 import net.minecraft.server.level.ChunkTaskDispatcher;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.level.ThreadedLevelLightEngine;
-import net.minecraft.server.network.ServerGamePacketListenerImpl;
 import net.minecraft.util.thread.ConsecutiveExecutor;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.LightLayer;
@@ -141,16 +139,10 @@ abstract class ThreadedLevelLightEngineMixin extends LevelLightEngine implements
                                 return;
                             }
 
-                            final Packet<?> relightPacket = new ClientboundLightUpdatePacket(
-                                    pos, (ThreadedLevelLightEngine)(Object)ThreadedLevelLightEngineMixin.this,
-                                    null, null
-                            );
-
+                            // coalesced with any other light change to the chunk in this tick
+                            final RegionizedPlayerChunkLoader playerChunkLoader = ((ChunkSystemServerLevel)world).moonrise$getPlayerChunkLoader();
                             for (final ServerPlayer player : players) {
-                                final ServerGamePacketListenerImpl conn = player.connection;
-                                if (conn != null) {
-                                    conn.send(relightPacket);
-                                }
+                                playerChunkLoader.queueLightUpdate(player, pos.x, pos.z, null, null);
                             }
                         });
                     },
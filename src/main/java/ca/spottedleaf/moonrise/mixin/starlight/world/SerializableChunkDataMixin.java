@@ -2,6 +2,7 @@ package ca.spottedleaf.moonrise.mixin.starlight.world;
 
 import ca.spottedleaf.moonrise.common.util.MixinWorkarounds;
 import ca.spottedleaf.moonrise.common.util.WorldUtil;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunkSection;
 import ca.spottedleaf.moonrise.patches.starlight.chunk.StarlightChunk;
 import ca.spottedleaf.moonrise.patches.starlight.light.SWMRNibbleArray;
 import ca.spottedleaf.moonrise.patches.starlight.light.StarLightEngine;
@@ -174,7 +175,7 @@ abstract class SerializableChunkDataMixin {
             final int lightSectionIdx = lightSection - minLightSection;
             final int blockSectionIdx = lightSection - minBlockSection;
 
-            final LevelChunkSection chunkSection = (blockSectionIdx >= 0 && blockSectionIdx < chunkSections.length) ? chunkSections[blockSectionIdx].copy() : null;
+            final LevelChunkSection chunkSection = (blockSectionIdx >= 0 && blockSectionIdx < chunkSections.length) ? ((ChunkSystemLevelChunkSection)chunkSections[blockSectionIdx]).moonrise$snapshot() : null;
             final SWMRNibbleArray.SaveState blockNibble = blockNibbles[lightSectionIdx].getSaveState();
             final SWMRNibbleArray.SaveState skyNibble = skyNibbles[lightSectionIdx].getSaveState();
 
@@ -0,0 +1,239 @@
+package ca.spottedleaf.moonrise.patches.chunk_cache;
+
+import ca.spottedleaf.moonrise.common.PlatformHooks;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkSystemServerPlayer;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
+import com.google.common.hash.Hashing;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import java.nio.ByteBuffer;
+
+/**
+ * Protocol extension between a server and a client which both run Moonrise, which lets the client keep the chunks it
+ * received in a cache on disk keyed by the hash of the chunk packet. The server then sends a chunk as a
+ * {@link ChunkReferencePayload} holding only the hash. The client loads the chunk from its cache off-thread and
+ * answers every reference with a {@link ChunkCacheResultPayload}. On a hit, the server sends a
+ * {@link ChunkApplyPayload} telling the client to apply the loaded chunk, and on a miss the full
+ * {@link ChunkDataPayload}.
+ * <p>
+ * The server only considers a referenced chunk sent once it sends the apply or data payload, so that no update for
+ * the chunk reaches the client before the chunk itself. If the chunk changed while the server waited for the
+ * result, the full data is sent instead of applying the now outdated cached chunk.
+ * </p>
+ * <p>
+ * Chunks are hashed over the encoded chunk packet, so the data a client caches is exactly what the server would
+ * send for the chunk. The encoded packet is shared between players the same way the packet itself is, see
+ * {@link ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkPacketCache}. The hash is SHA-256 truncated to
+ * 128 bits, so that a server cannot craft data colliding with a chunk the client cached.
+ * </p>
+ */
+public final class ChunkCacheProtocol {
+
+    // the max payload size of the clientbound custom payload packet is 1MiB, leave room for the header
+    public static final int MAX_DATA_SIZE = 1024 * 1024 - 1024;
+
+    private static volatile boolean serverEnabled;
+    private static volatile boolean clientEnabled = true;
+    private static volatile long maxDiskSize = 512L * 1024L * 1024L;
+
+    public static void init(final boolean serverEnabled, final boolean clientEnabled, final long maxDiskSize) {
+        ChunkCacheProtocol.serverEnabled = serverEnabled;
+        ChunkCacheProtocol.clientEnabled = clientEnabled;
+        ChunkCacheProtocol.maxDiskSize = Math.max(0L, maxDiskSize);
+    }
+
+    public static boolean isClientEnabled() {
+        return clientEnabled;
+    }
+
+    public static long getMaxDiskSize() {
+        return maxDiskSize;
+    }
+
+    /**
+     * Returns the chunk cache session for the specified player, or {@code null} if the server does not enable the
+     * chunk cache or the player's client does not support it.
+     */
+    public static ChunkCacheSession createSession(final ServerPlayer player) {
+        if (!serverEnabled || player.connection == null) {
+            return null;
+        }
+        // no point in saving bandwidth for the integrated server's own client
+        if (player.connection.connection.isMemoryConnection()) {
+            return null;
+        }
+        if (!PlatformHooks.get().canSendPayload(player, ChunkReferencePayload.TYPE)) {
+            return null;
+        }
+
+        return new ChunkCacheSession();
+    }
+
+    public static void handleResult(final ServerPlayer player, final ChunkCacheResultPayload payload) {
+        final RegionizedPlayerChunkLoader.PlayerChunkLoaderData loader = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
+        if (loader != null) {
+            loader.onChunkCacheResult(payload.enabled(), payload.chunkX(), payload.chunkZ(), payload.hash(), payload.hit());
+        }
+    }
+
+    public static ChunkHash hash(final byte[] data) {
+        final ByteBuffer hash = ByteBuffer.wrap(Hashing.sha256().hashBytes(data).asBytes());
+        return new ChunkHash(hash.getLong(), hash.getLong());
+    }
+
+    public static EncodedChunk encode(final ClientboundLevelChunkWithLightPacket packet, final RegistryAccess registryAccess) {
+        final ByteBuf buffer = Unpooled.buffer();
+        try {
+            ClientboundLevelChunkWithLightPacket.STREAM_CODEC.encode(new RegistryFriendlyByteBuf(buffer, registryAccess), packet);
+
+            final byte[] data = new byte[buffer.readableBytes()];
+            buffer.readBytes(data);
+
+            return new EncodedChunk(hash(data), data);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public static ClientboundLevelChunkWithLightPacket decode(final byte[] data, final RegistryAccess registryAccess) {
+        return ClientboundLevelChunkWithLightPacket.STREAM_CODEC.decode(
+            new RegistryFriendlyByteBuf(Unpooled.wrappedBuffer(data), registryAccess)
+        );
+    }
+
+    public static record ChunkHash(long high, long low) {
+
+        public static ChunkHash read(final FriendlyByteBuf buffer) {
+            return new ChunkHash(buffer.readLong(), buffer.readLong());
+        }
+
+        public void write(final FriendlyByteBuf buffer) {
+            buffer.writeLong(this.high);
+            buffer.writeLong(this.low);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", this.high, this.low);
+        }
+    }
+
+    public static record EncodedChunk(ChunkHash hash, byte[] data) {
+
+        public boolean canCache() {
+            return this.data.length <= MAX_DATA_SIZE;
+        }
+    }
+
+    public static record ChunkReferencePayload(int chunkX, int chunkZ, ChunkHash hash) implements CustomPacketPayload {
+
+        public static final CustomPacketPayload.Type<ChunkReferencePayload> TYPE = new CustomPacketPayload.Type<>(
+            ResourceLocation.fromNamespaceAndPath("moonrise", "chunk_cache_reference")
+        );
+        public static final StreamCodec<FriendlyByteBuf, ChunkReferencePayload> STREAM_CODEC = CustomPacketPayload.codec(
+            ChunkReferencePayload::write, ChunkReferencePayload::new
+        );
+
+        private ChunkReferencePayload(final FriendlyByteBuf buffer) {
+            this(buffer.readInt(), buffer.readInt(), ChunkHash.read(buffer));
+        }
+
+        private void write(final FriendlyByteBuf buffer) {
+            buffer.writeInt(this.chunkX);
+            buffer.writeInt(this.chunkZ);
+            this.hash.write(buffer);
+        }
+
+        @Override
+        public CustomPacketPayload.Type<ChunkReferencePayload> type() {
+            return TYPE;
+        }
+    }
+
+    public static record ChunkApplyPayload(int chunkX, int chunkZ, ChunkHash hash) implements CustomPacketPayload {
+
+        public static final CustomPacketPayload.Type<ChunkApplyPayload> TYPE = new CustomPacketPayload.Type<>(
+            ResourceLocation.fromNamespaceAndPath("moonrise", "chunk_cache_apply")
+        );
+        public static final StreamCodec<FriendlyByteBuf, ChunkApplyPayload> STREAM_CODEC = CustomPacketPayload.codec(
+            ChunkApplyPayload::write, ChunkApplyPayload::new
+        );
+
+        private ChunkApplyPayload(final FriendlyByteBuf buffer) {
+            this(buffer.readInt(), buffer.readInt(), ChunkHash.read(buffer));
+        }
+
+        private void write(final FriendlyByteBuf buffer) {
+            buffer.writeInt(this.chunkX);
+            buffer.writeInt(this.chunkZ);
+            this.hash.write(buffer);
+        }
+
+        @Override
+        public CustomPacketPayload.Type<ChunkApplyPayload> type() {
+            return TYPE;
+        }
+    }
+
+    public static record ChunkDataPayload(ChunkHash hash, byte[] data) implements CustomPacketPayload {
+
+        public static final CustomPacketPayload.Type<ChunkDataPayload> TYPE = new CustomPacketPayload.Type<>(
+            ResourceLocation.fromNamespaceAndPath("moonrise", "chunk_cache_data")
+        );
+        public static final StreamCodec<FriendlyByteBuf, ChunkDataPayload> STREAM_CODEC = CustomPacketPayload.codec(
+            ChunkDataPayload::write, ChunkDataPayload::new
+        );
+
+        private ChunkDataPayload(final FriendlyByteBuf buffer) {
+            this(ChunkHash.read(buffer), buffer.readByteArray(MAX_DATA_SIZE));
+        }
+
+        private void write(final FriendlyByteBuf buffer) {
+            this.hash.write(buffer);
+            buffer.writeByteArray(this.data);
+        }
+
+        @Override
+        public CustomPacketPayload.Type<ChunkDataPayload> type() {
+            return TYPE;
+        }
+    }
+
+    // the hash identifies the reference answered, as the chunk may have been referenced again since
+    public static record ChunkCacheResultPayload(boolean enabled, int chunkX, int chunkZ, ChunkHash hash, boolean hit) implements CustomPacketPayload {
+
+        public static final CustomPacketPayload.Type<ChunkCacheResultPayload> TYPE = new CustomPacketPayload.Type<>(
+            ResourceLocation.fromNamespaceAndPath("moonrise", "chunk_cache_result")
+        );
+        public static final StreamCodec<FriendlyByteBuf, ChunkCacheResultPayload> STREAM_CODEC = CustomPacketPayload.codec(
+            ChunkCacheResultPayload::write, ChunkCacheResultPayload::new
+        );
+
+        private ChunkCacheResultPayload(final FriendlyByteBuf buffer) {
+            this(buffer.readBoolean(), buffer.readInt(), buffer.readInt(), ChunkHash.read(buffer), buffer.readBoolean());
+        }
+
+        private void write(final FriendlyByteBuf buffer) {
+            buffer.writeBoolean(this.enabled);
+            buffer.writeInt(this.chunkX);
+            buffer.writeInt(this.chunkZ);
+            this.hash.write(buffer);
+            buffer.writeBoolean(this.hit);
+        }
+
+        @Override
+        public CustomPacketPayload.Type<ChunkCacheResultPayload> type() {
+            return TYPE;
+        }
+    }
+
+    private ChunkCacheProtocol() {}
+}
@@ -0,0 +1,93 @@
+package ca.spottedleaf.moonrise.patches.chunk_cache;
+
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+
+/**
+ * Per-player state of the chunk cache protocol on the server, which decides whether a chunk is sent as a reference
+ * to the client's cache or in full.
+ * <p>
+ * References are sent for chunks the player received in full earlier in the session, and for every other chunk
+ * while most references hit the client's cache. Once the hit rate drops (i.e the player explores new terrain), only
+ * every few chunks are sent as a reference, as each reference costs a round trip before the chunk is received and
+ * a miss costs a second one.
+ * </p>
+ */
+public final class ChunkCacheSession {
+
+    private static final double HIT_RATE_ALPHA = 0.05;
+    private static final double MIN_HIT_RATE = 0.25;
+    private static final int PROBE_INTERVAL = 16;
+    private static final int MAX_KNOWN_HASHES = 16384;
+
+    private boolean enabled = true;
+    private double hitRate = 0.5;
+    private int sinceProbe;
+    // hashes of the chunks sent in full, which the client must still have unless it evicted them
+    private final ObjectOpenHashSet<ChunkCacheProtocol.ChunkHash> knownHashes = new ObjectOpenHashSet<>();
+
+    private long references;
+    private long fullSends;
+    private long hits;
+    private long misses;
+
+    ChunkCacheSession() {}
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public boolean shouldReference(final ChunkCacheProtocol.ChunkHash hash) {
+        if (this.knownHashes.contains(hash) || this.hitRate >= MIN_HIT_RATE) {
+            return true;
+        }
+        if (++this.sinceProbe >= PROBE_INTERVAL) {
+            this.sinceProbe = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public void onReferenceSent() {
+        ++this.references;
+    }
+
+    public void onFullSent(final ChunkCacheProtocol.ChunkHash hash) {
+        ++this.fullSends;
+        if (this.knownHashes.size() >= MAX_KNOWN_HASHES) {
+            this.knownHashes.clear();
+        }
+        this.knownHashes.add(hash);
+    }
+
+    public void onResult(final boolean enabled, final int hits, final int misses) {
+        if (!enabled) {
+            this.enabled = false;
+            return;
+        }
+
+        this.hits += (long)hits;
+        this.misses += (long)misses;
+
+        for (int i = 0; i < hits; ++i) {
+            this.hitRate += (1.0 - this.hitRate) * HIT_RATE_ALPHA;
+        }
+        for (int i = 0; i < misses; ++i) {
+            this.hitRate -= this.hitRate * HIT_RATE_ALPHA;
+        }
+    }
+
+    public JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("enabled", this.enabled);
+        ret.addProperty("hit_rate", this.hitRate);
+        ret.addProperty("known_hashes", this.knownHashes.size());
+        ret.addProperty("references", this.references);
+        ret.addProperty("full_sends", this.fullSends);
+        ret.addProperty("hits", this.hits);
+        ret.addProperty("misses", this.misses);
+
+        return ret;
+    }
+}
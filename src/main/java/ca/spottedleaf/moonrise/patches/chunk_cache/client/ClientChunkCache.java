@@ -0,0 +1,427 @@
+package ca.spottedleaf.moonrise.patches.chunk_cache.client;
+
+import ca.spottedleaf.concurrentutil.executor.thread.PrioritisedThreadPool;
+import ca.spottedleaf.concurrentutil.util.ConcurrentUtil;
+import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
+import ca.spottedleaf.moonrise.common.util.MoonriseCommon;
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Client side of the chunk cache protocol (see {@link ChunkCacheProtocol}). Recently received chunks are kept in
+ * memory, and every received chunk is written compressed to disk on the I/O pool so that it survives rejoining.
+ * <p>
+ * Referenced chunks are read and decoded on the I/O pool, and are only applied once the server sends the apply
+ * payload, which keeps them ordered with the other packets the server sends for the chunk. Entries are verified
+ * against their hash when read from disk and when received.
+ * </p>
+ * <p>
+ * The cache is namespaced by the address of the server, so that a server can neither probe which chunks the client
+ * received from other servers nor place entries in their cache. Only the disk size limit is shared.
+ * </p>
+ */
+public final class ClientChunkCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientChunkCache.class);
+
+    private static final long MAX_MEMORY_SIZE = 32L * 1024L * 1024L;
+    // loaded chunks waiting for the server to apply them, the server may never apply a chunk if it changed meanwhile
+    private static final int MAX_LOADED = 1024;
+    // the disk cache is trimmed to this fraction of the max size, so that it is not trimmed on every write
+    private static final double TRIM_FACTOR = 0.9;
+
+    private static ClientChunkCache instance;
+
+    // only accessed by the client thread
+    public static ClientChunkCache get() {
+        if (instance == null) {
+            instance = new ClientChunkCache();
+        }
+        return instance;
+    }
+
+    // only accessed by the client thread
+    public static void shutdown() {
+        final ClientChunkCache cache = instance;
+        if (cache == null) {
+            return;
+        }
+        instance = null;
+
+        // entries are written to a temporary file and then moved, so halting cannot leave a partial entry behind
+        cache.readExecutor.halt();
+        cache.ioExecutor.halt();
+        final long start = System.nanoTime();
+        final long maxWait = TimeUnit.SECONDS.toNanos(5L);
+        for (long failures = 9L;; failures = ConcurrentUtil.linearLongBackoff(failures, 500_000L, 50_000_000L)) {
+            if (!cache.readExecutor.isActive() && !cache.ioExecutor.isActive()) {
+                return;
+            }
+            if ((System.nanoTime() - start) >= maxWait) {
+                LOGGER.warn("Chunk cache I/O did not halt in time");
+                return;
+            }
+        }
+    }
+
+    private final Path root;
+    private final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor ioExecutor;
+    private final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor readExecutor;
+
+    // only accessed by the client thread
+    private String address;
+    private Path directory;
+    private final Object2ObjectLinkedOpenHashMap<ChunkCacheProtocol.ChunkHash, byte[]> memory = new Object2ObjectLinkedOpenHashMap<>();
+    private long memorySize;
+    private final Object2ObjectLinkedOpenHashMap<ChunkCacheProtocol.ChunkHash, LoadedChunk> loaded = new Object2ObjectLinkedOpenHashMap<>();
+
+    // only accessed by the I/O executor
+    private long diskSize;
+
+    private ClientChunkCache() {
+        this.root = Minecraft.getInstance().gameDirectory.toPath().resolve("moonrise").resolve("chunk_cache");
+        this.ioExecutor = MoonriseCommon.CLIENT_CHUNK_CACHE_IO_GROUP.createExecutor(1, MoonriseCommon.IO_QUEUE_HOLD_TIME, 0);
+        // reads only queue deletions and touches to the I/O executor, so they may run in parallel with it
+        this.readExecutor = MoonriseCommon.CLIENT_CHUNK_CACHE_IO_GROUP.createExecutor(-1, MoonriseCommon.IO_QUEUE_HOLD_TIME, 0);
+        this.ioExecutor.queueTask(this::scanDisk);
+    }
+
+    /**
+     * Selects the namespace of the server the client is connected to, returns {@code false} if there is none.
+     */
+    private boolean selectNamespace() {
+        final ServerData server = Minecraft.getInstance().getCurrentServer();
+        final String address = server == null ? null : server.ip.toLowerCase(Locale.ROOT);
+        if (address == null || address.isEmpty()) {
+            return false;
+        }
+        if (address.equals(this.address)) {
+            return true;
+        }
+
+        this.address = address;
+        this.directory = this.root.resolve(ChunkCacheProtocol.hash(address.getBytes(StandardCharsets.UTF_8)).toString());
+        this.memory.clear();
+        this.memorySize = 0L;
+        this.loaded.clear();
+
+        return true;
+    }
+
+    public void handleReference(final ChunkCacheProtocol.ChunkReferencePayload payload) {
+        final ClientPacketListener listener = Minecraft.getInstance().getConnection();
+        if (listener == null) {
+            return;
+        }
+
+        if (!ChunkCacheProtocol.isClientEnabled() || !this.selectNamespace()) {
+            // the server stops sending references once told the cache is disabled
+            this.send(listener, new ChunkCacheProtocol.ChunkCacheResultPayload(false, payload.chunkX(), payload.chunkZ(), payload.hash(), false));
+            return;
+        }
+
+        final byte[] memory = this.memory.getAndMoveToLast(payload.hash());
+        final Path path = this.getPath(payload.hash());
+        final RegistryAccess registryAccess = listener.registryAccess();
+        // the server sends nothing for the chunk until it receives the result, so the chunk may load off-thread
+        this.readExecutor.queueTask(() -> {
+            final byte[] data = memory != null ? memory : ClientChunkCache.this.readDisk(payload.hash(), path);
+            final ClientboundLevelChunkWithLightPacket packet = data == null ? null : decode(payload.hash(), data, registryAccess);
+            Minecraft.getInstance().execute(() -> {
+                ClientChunkCache.this.onLoad(listener, payload, data, packet);
+            });
+        });
+    }
+
+    private void onLoad(final ClientPacketListener listener, final ChunkCacheProtocol.ChunkReferencePayload payload,
+                        final byte[] data, final ClientboundLevelChunkWithLightPacket packet) {
+        if (Minecraft.getInstance().getConnection() != listener || !this.selectNamespace()) {
+            // disconnected meanwhile
+            return;
+        }
+
+        final ChunkCacheProtocol.ChunkHash hash = payload.hash();
+        if (data != null && packet == null) {
+            this.discard(hash);
+        }
+
+        final boolean hit = packet != null && packet.getX() == payload.chunkX() && packet.getZ() == payload.chunkZ();
+        if (hit) {
+            this.putMemory(hash, data);
+            final Path path = this.getPath(hash);
+            this.ioExecutor.queueTask(() -> touch(path));
+
+            this.loaded.putAndMoveToLast(hash, new LoadedChunk(listener, packet));
+            while (this.loaded.size() > MAX_LOADED) {
+                this.loaded.removeFirst();
+            }
+        }
+
+        this.send(listener, new ChunkCacheProtocol.ChunkCacheResultPayload(true, payload.chunkX(), payload.chunkZ(), hash, hit));
+    }
+
+    public void handleApply(final ChunkCacheProtocol.ChunkApplyPayload payload) {
+        final ClientPacketListener listener = Minecraft.getInstance().getConnection();
+        if (listener == null) {
+            return;
+        }
+
+        if (!this.selectNamespace()) {
+            return;
+        }
+
+        final LoadedChunk loaded = this.loaded.remove(payload.hash());
+        ClientboundLevelChunkWithLightPacket packet = loaded == null || loaded.listener() != listener ? null : loaded.packet();
+        if (packet == null) {
+            // only if evicted from the loaded chunks, as the server only applies chunks the client reported as hits
+            packet = this.loadNow(payload.hash(), listener.registryAccess());
+        }
+        if (packet == null || packet.getX() != payload.chunkX() || packet.getZ() != payload.chunkZ()) {
+            LOGGER.warn("Server applied chunk (" + payload.chunkX() + "," + payload.chunkZ() + ") which is no longer cached");
+            return;
+        }
+
+        listener.handleLevelChunkWithLight(packet);
+    }
+
+    public void handleData(final ChunkCacheProtocol.ChunkDataPayload payload) {
+        final ClientPacketListener listener = Minecraft.getInstance().getConnection();
+        if (listener == null) {
+            return;
+        }
+
+        listener.handleLevelChunkWithLight(ChunkCacheProtocol.decode(payload.data(), listener.registryAccess()));
+
+        if (!ChunkCacheProtocol.isClientEnabled() || !this.selectNamespace() || this.memory.containsKey(payload.hash())) {
+            return;
+        }
+        if (!ChunkCacheProtocol.hash(payload.data()).equals(payload.hash())) {
+            LOGGER.warn("Server sent chunk data not matching its hash, not caching it");
+            return;
+        }
+
+        this.putMemory(payload.hash(), payload.data());
+        final Path path = this.getPath(payload.hash());
+        this.ioExecutor.queueTask(() -> ClientChunkCache.this.write(path, payload.data()));
+    }
+
+    private void send(final ClientPacketListener listener, final ChunkCacheProtocol.ChunkCacheResultPayload payload) {
+        listener.send(new ServerboundCustomPayloadPacket(payload));
+    }
+
+    private ClientboundLevelChunkWithLightPacket loadNow(final ChunkCacheProtocol.ChunkHash hash, final RegistryAccess registryAccess) {
+        byte[] data = this.memory.getAndMoveToLast(hash);
+        if (data == null) {
+            data = this.readDisk(hash, this.getPath(hash));
+            if (data == null) {
+                return null;
+            }
+            this.putMemory(hash, data);
+        }
+
+        final ClientboundLevelChunkWithLightPacket ret = decode(hash, data, registryAccess);
+        if (ret == null) {
+            this.discard(hash);
+        }
+        return ret;
+    }
+
+    private static ClientboundLevelChunkWithLightPacket decode(final ChunkCacheProtocol.ChunkHash hash, final byte[] data,
+                                                              final RegistryAccess registryAccess) {
+        try {
+            return ChunkCacheProtocol.decode(data, registryAccess);
+        } catch (final Throwable thr) {
+            LOGGER.warn("Failed to decode cached chunk " + hash + ", discarding it", thr);
+            return null;
+        }
+    }
+
+    private void discard(final ChunkCacheProtocol.ChunkHash hash) {
+        final byte[] prev = this.memory.remove(hash);
+        if (prev != null) {
+            this.memorySize -= (long)prev.length;
+        }
+        final Path path = this.getPath(hash);
+        this.ioExecutor.queueTask(() -> ClientChunkCache.this.delete(path));
+    }
+
+    private void putMemory(final ChunkCacheProtocol.ChunkHash hash, final byte[] data) {
+        final byte[] prev = this.memory.putAndMoveToLast(hash, data);
+        if (prev != null) {
+            this.memorySize -= (long)prev.length;
+        }
+        this.memorySize += (long)data.length;
+
+        while (this.memorySize > MAX_MEMORY_SIZE && !this.memory.isEmpty()) {
+            this.memorySize -= (long)this.memory.removeFirst().length;
+        }
+    }
+
+    private Path getPath(final ChunkCacheProtocol.ChunkHash hash) {
+        final String name = hash.toString();
+        // spread the entries over 256 directories
+        return this.directory.resolve(name.substring(name.length() - 2)).resolve(name + ".bin");
+    }
+
+    private byte[] readDisk(final ChunkCacheProtocol.ChunkHash hash, final Path path) {
+        try (final DataInputStream in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(Files.newInputStream(path))))) {
+            final int length = in.readInt();
+            if (length < 0 || length > ChunkCacheProtocol.MAX_DATA_SIZE) {
+                throw new IOException("Invalid length " + length);
+            }
+            final byte[] data = new byte[length];
+            in.readFully(data);
+
+            if (!ChunkCacheProtocol.hash(data).equals(hash)) {
+                throw new IOException("Hash mismatch");
+            }
+
+            return data;
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException ex) {
+            LOGGER.warn("Failed to read cached chunk " + path + ", discarding it", ex);
+            this.ioExecutor.queueTask(() -> ClientChunkCache.this.delete(path));
+            return null;
+        }
+    }
+
+    private static void touch(final Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (final IOException ex) {
+            // not written yet, or trimmed
+        }
+    }
+
+    private void delete(final Path path) {
+        try {
+            final long size = Files.size(path);
+            Files.delete(path);
+            this.diskSize -= size;
+        } catch (final IOException ex) {
+            // already deleted
+        }
+    }
+
+    private void write(final Path path, final byte[] data) {
+        final long maxSize = ChunkCacheProtocol.getMaxDiskSize();
+        if (maxSize <= 0L) {
+            return;
+        }
+
+        try {
+            if (Files.exists(path)) {
+                touch(path);
+                return;
+            }
+            Files.createDirectories(path.getParent());
+
+            final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(data.length);
+                out.write(data);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            this.diskSize += Files.size(path);
+        } catch (final IOException ex) {
+            LOGGER.warn("Failed to write cached chunk " + path, ex);
+            return;
+        }
+
+        if (this.diskSize > maxSize) {
+            this.trim(maxSize);
+        }
+    }
+
+    private static record LoadedChunk(ClientPacketListener listener, ClientboundLevelChunkWithLightPacket packet) {}
+
+    private static record DiskEntry(Path path, long size, long lastModified) {}
+
+    private List<DiskEntry> listDisk() {
+        final List<DiskEntry> ret = new ArrayList<>();
+        if (!Files.isDirectory(this.root)) {
+            return ret;
+        }
+
+        try (final Stream<Path> stream = Files.walk(this.root, 3)) {
+            stream.filter((final Path path) -> path.getFileName().toString().endsWith(".bin")).forEach((final Path path) -> {
+                try {
+                    final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    ret.add(new DiskEntry(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (final IOException ex) {
+                    // deleted while listing
+                }
+            });
+        } catch (final IOException ex) {
+            LOGGER.warn("Failed to list chunk cache in " + this.root, ex);
+        }
+
+        return ret;
+    }
+
+    private void scanDisk() {
+        long size = 0L;
+        for (final DiskEntry entry : this.listDisk()) {
+            size += entry.size();
+        }
+        this.diskSize = size;
+
+        final long maxSize = ChunkCacheProtocol.getMaxDiskSize();
+        if (size > maxSize) {
+            this.trim(maxSize);
+        }
+    }
+
+    private void trim(final long maxSize) {
+        final List<DiskEntry> entries = this.listDisk();
+        entries.sort(Comparator.comparingLong(DiskEntry::lastModified));
+
+        long size = 0L;
+        for (final DiskEntry entry : entries) {
+            size += entry.size();
+        }
+
+        final long target = (long)((double)maxSize * TRIM_FACTOR);
+        for (int i = 0, len = entries.size(); i < len && size > target; ++i) {
+            final DiskEntry entry = entries.get(i);
+            try {
+                Files.deleteIfExists(entry.path());
+                size -= entry.size();
+            } catch (final IOException ex) {
+                LOGGER.warn("Failed to delete cached chunk " + entry.path(), ex);
+            }
+        }
+
+        this.diskSize = size;
+    }
+}
@@ -14,6 +14,7 @@ import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
 import ca.spottedleaf.moonrise.common.util.TickThread;
 import ca.spottedleaf.moonrise.common.util.WorldUtil;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.PriorityAging;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.server.MinecraftServer;
@@ -952,6 +953,29 @@ public final class MoonriseRegionFileIO {
         private RegionDataController.ReadData readData;
         private RegionDataController.WriteData writeData;
         private boolean failedWrite;
+        private volatile boolean ended;
+
+        private final PriorityAging.Entry agingEntry = new PriorityAging.Entry() {
+            @Override
+            protected Priority getPriority() {
+                return ChunkIOTask.this.getPriority();
+            }
+
+            @Override
+            protected void raisePriority(final Priority priority) {
+                ChunkIOTask.this.raisePriority(priority);
+            }
+
+            @Override
+            protected boolean isDone() {
+                return ChunkIOTask.this.ended;
+            }
+
+            @Override
+            public String toString() {
+                return ChunkIOTask.this.toString();
+            }
+        };
 
         public ChunkIOTask(final ServerLevel world, final RegionDataController regionDataController,
                            final int chunkX, final int chunkZ, final Priority priority, final InProgressRead inProgressRead) {
@@ -1427,9 +1451,11 @@ public final class MoonriseRegionFileIO {
 
         final void startTask(final ChunkIOTask task) {
             this.inProgressTasks.getAndIncrement();
+            PriorityAging.track(task.agingEntry);
         }
 
         final void endTask(final ChunkIOTask task) {
+            task.ended = true;
             this.inProgressTasks.getAndDecrement();
         }
 
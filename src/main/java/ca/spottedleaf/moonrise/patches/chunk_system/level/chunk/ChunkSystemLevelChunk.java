@@ -1,5 +1,6 @@
 package ca.spottedleaf.moonrise.patches.chunk_system.level.chunk;
 
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
 import net.minecraft.server.level.ServerChunkCache;
 
 public interface ChunkSystemLevelChunk {
@@ -10,4 +11,14 @@ public interface ChunkSystemLevelChunk {
 
     public void moonrise$setChunkAndHolder(final ServerChunkCache.ChunkAndHolder holder);
 
+    public void moonrise$setPreparedBlockEntities(final PreparedBlockEntities prepared);
+
+    public PreparedBlockEntities moonrise$takePreparedBlockEntities();
+
+    public ClientboundLevelChunkWithLightPacket moonrise$getCachedChunkPacket();
+
+    public void moonrise$setCachedChunkPacket(final ClientboundLevelChunkWithLightPacket packet);
+
+    public int moonrise$getChunkPacketVersion();
+
 }
@@ -0,0 +1,23 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.level.chunk;
+
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+public interface ChunkSystemLevelChunkSection {
+
+    /**
+     * Returns a copy of this section which shares the block and biome containers with this section. The block
+     * container is only copied when this section is next written to. The returned section must not be written to.
+     */
+    public LevelChunkSection moonrise$snapshot();
+
+    /**
+     * Returns the serialization cache of this section, or {@code null} if this section is not a snapshot.
+     */
+    public SectionSerializationCache moonrise$getSerializationCache();
+
+    /**
+     * Returns whether this section has been modified since its contents were last serialized.
+     */
+    public boolean moonrise$isSerializationDirty();
+
+}
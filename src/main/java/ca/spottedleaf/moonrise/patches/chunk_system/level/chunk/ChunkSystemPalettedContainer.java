@@ -0,0 +1,20 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.level.chunk;
+
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+public interface ChunkSystemPalettedContainer<T> {
+
+    /**
+     * Returns a new container which shares the palette and storage of this container. The contents are copied
+     * when this container is next written to, so that the returned container is unaffected. The returned container
+     * must not be written to.
+     */
+    public PalettedContainer<T> moonrise$share();
+
+    /**
+     * Copies the palette and storage of this container if they are shared with a container returned by
+     * {@link #moonrise$share()}, and returns whether a copy was made.
+     */
+    public boolean moonrise$unshare();
+
+}
@@ -0,0 +1,92 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.level.chunk;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Block entities created from a chunk's NBT ahead of time, off of the main thread. When the chunk transitions
+ * to full status, the main thread takes the prepared block entity instead of parsing the tag again.
+ * <p>
+ * Entries are keyed by the identity of the tag they were created from, so that a tag which was replaced in the
+ * meantime is parsed again by the main thread.
+ * </p>
+ */
+public final class PreparedBlockEntities {
+
+    private static final ThreadLocal<PreparedBlockEntities> CURRENT = new ThreadLocal<>();
+
+    private final Map<CompoundTag, BlockEntity> byTag;
+
+    private PreparedBlockEntities(final Map<CompoundTag, BlockEntity> byTag) {
+        this.byTag = byTag;
+    }
+
+    /**
+     * Creates the block entities for the specified tags. Returns {@code null} if none were created.
+     */
+    public static PreparedBlockEntities prepare(final LevelChunk chunk, final Collection<CompoundTag> tags,
+                                                final HolderLookup.Provider registries) {
+        Map<CompoundTag, BlockEntity> ret = null;
+
+        for (final CompoundTag tag : tags) {
+            if (tag.getBoolean("keepPacked")) {
+                // not unpacked during the full transition
+                continue;
+            }
+            // modded block entities may touch the world when they are created or loaded
+            final ResourceLocation id = ResourceLocation.tryParse(tag.getString("id"));
+            if (id == null || !ResourceLocation.DEFAULT_NAMESPACE.equals(id.getNamespace())) {
+                continue;
+            }
+
+            final BlockPos pos = BlockEntity.getPosFromTag(tag);
+            final BlockEntity blockEntity = BlockEntity.loadStatic(pos, chunk.getBlockState(pos), tag, registries);
+            if (blockEntity == null) {
+                continue;
+            }
+
+            if (ret == null) {
+                ret = new IdentityHashMap<>();
+            }
+            ret.put(tag, blockEntity);
+        }
+
+        return ret == null ? null : new PreparedBlockEntities(ret);
+    }
+
+    /**
+     * Sets the prepared block entities that {@link BlockEntity#loadStatic} may use on the current thread.
+     */
+    public static void setCurrent(final PreparedBlockEntities prepared) {
+        if (prepared == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(prepared);
+        }
+    }
+
+    public static BlockEntity takeCurrent(final BlockPos pos, final BlockState state, final CompoundTag tag) {
+        final PreparedBlockEntities current = CURRENT.get();
+        return current == null ? null : current.take(pos, state, tag);
+    }
+
+    public void clear() {
+        this.byTag.clear();
+    }
+
+    private BlockEntity take(final BlockPos pos, final BlockState state, final CompoundTag tag) {
+        final BlockEntity ret = this.byTag.remove(tag);
+        if (ret == null || !ret.getBlockPos().equals(pos) || ret.getBlockState() != state) {
+            return null;
+        }
+        return ret;
+    }
+}
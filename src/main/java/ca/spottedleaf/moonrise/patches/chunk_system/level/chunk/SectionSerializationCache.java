@@ -0,0 +1,95 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.level.chunk;
+
+import net.minecraft.nbt.Tag;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the serialized block and biome containers of a section, along with the container contents they were
+ * encoded from. A tag is only valid while the section still holds the same contents: the block states are compared
+ * by the identity of the {@link net.minecraft.world.level.chunk.PalettedContainer.Data}, which is replaced whenever
+ * the container is written to after being shared with a snapshot, and the biomes by the identity of the container,
+ * which is replaced rather than written to.
+ * <p>
+ * The encoded tags are shared across saves and must not be modified.
+ * </p>
+ * <p>
+ * Only the {@link #MAX_CACHED_SECTIONS} most recently written caches hold their tags, older caches are cleared
+ * and are encoded again on the next save. Caches are tracked weakly, so the caches of unloaded sections are
+ * collected with the section.
+ * </p>
+ */
+public final class SectionSerializationCache {
+
+    // about 4KiB per cached block container at 8 bits per entry
+    public static final int MAX_CACHED_SECTIONS = 8192;
+
+    private static final ReferenceQueue<SectionSerializationCache> COLLECTED = new ReferenceQueue<>();
+    private static final Map<Reference<SectionSerializationCache>, Boolean> RECENTLY_USED = new LinkedHashMap<>(128, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Reference<SectionSerializationCache>, Boolean> eldest) {
+            if (this.size() <= MAX_CACHED_SECTIONS) {
+                return false;
+            }
+            final SectionSerializationCache cache = eldest.getKey().get();
+            if (cache != null) {
+                cache.clear();
+            }
+            return true;
+        }
+    };
+
+    private static record Entry(Object source, Tag tag) {}
+
+    private final WeakReference<SectionSerializationCache> reference = new WeakReference<>(this, COLLECTED);
+    private volatile Entry blockStates;
+    private volatile Entry biomes;
+
+    public SectionSerializationCache() {}
+
+    private void markUsed() {
+        synchronized (RECENTLY_USED) {
+            Reference<? extends SectionSerializationCache> collected;
+            while ((collected = COLLECTED.poll()) != null) {
+                RECENTLY_USED.remove(collected);
+            }
+            RECENTLY_USED.put(this.reference, Boolean.TRUE);
+        }
+    }
+
+    private void clear() {
+        this.blockStates = null;
+        this.biomes = null;
+    }
+
+    private static Tag get(final Entry entry, final Object source) {
+        return entry != null && entry.source() == source ? entry.tag() : null;
+    }
+
+    /**
+     * Returns the block states encoded from the specified container data, or {@code null} if not cached.
+     */
+    public Tag getBlockStates(final Object data) {
+        return get(this.blockStates, data);
+    }
+
+    /**
+     * Returns the biomes encoded from the specified container, or {@code null} if not cached.
+     */
+    public Tag getBiomes(final Object container) {
+        return get(this.biomes, container);
+    }
+
+    public void setBlockStates(final Object data, final Tag blockStates) {
+        this.blockStates = new Entry(data, blockStates);
+        this.markUsed();
+    }
+
+    public void setBiomes(final Object container, final Tag biomes) {
+        this.biomes = new Entry(container, biomes);
+        this.markUsed();
+    }
+}
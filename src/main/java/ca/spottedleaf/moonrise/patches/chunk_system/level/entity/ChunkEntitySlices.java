@@ -165,6 +165,10 @@ public final class ChunkEntitySlices {
         return this.entities.size() != 0;
     }
 
+    public int getEntityCount() {
+        return this.entities.size();
+    }
+
     public List<Entity> getAllEntities() {
         final int len = this.entities.size();
         if (len == 0) {
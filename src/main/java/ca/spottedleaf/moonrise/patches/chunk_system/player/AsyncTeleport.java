@@ -0,0 +1,133 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import ca.spottedleaf.concurrentutil.util.Priority;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.TickTask;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Relative;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.portal.TeleportTransition;
+import net.minecraft.world.phys.Vec3;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the chunks at a teleport destination before the entity is moved there, so that the teleport does not
+ * synchronously load the destination and players do not arrive in chunks which are not yet sent.
+ * <p>
+ * Only the chunks within {@link #CORE_RADIUS} of the destination are loaded, the player chunk loader loads the
+ * rest of the player's view distance once the player has arrived. The loaded chunks are held by a timed ticket so
+ * that they stay loaded until the entity's own tickets are added.
+ * </p>
+ */
+public final class AsyncTeleport {
+
+    public static final TicketType<Long> TELEPORT = TicketType.create("chunk_system:teleport", Long::compareTo, 10 * 20);
+    private static final AtomicLong TELEPORT_IDS = new AtomicLong();
+
+    public static final int CORE_RADIUS = 2;
+
+    public static int getCoreRadius(final Entity entity) {
+        if (!(entity instanceof ServerPlayer player)) {
+            return CORE_RADIUS;
+        }
+        // no point in loading chunks the player is not sent
+        return Math.max(0, Math.min(CORE_RADIUS, RegionizedPlayerChunkLoader.getAPISendViewDistance(player)));
+    }
+
+    public static boolean isLoaded(final ServerLevel world, final double x, final double z, final int radius) {
+        final int chunkX = Mth.floor(x) >> 4;
+        final int chunkZ = Mth.floor(z) >> 4;
+
+        for (int cx = chunkX - radius; cx <= chunkX + radius; ++cx) {
+            for (int cz = chunkZ - radius; cz <= chunkZ + radius; ++cz) {
+                if (((ChunkSystemServerLevel)world).moonrise$getFullChunkIfLoaded(cx, cz) == null) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Loads the chunks within the specified radius of the block position to full status, and invokes the callback
+     * on the main thread once they are loaded. The callback may be invoked immediately if the chunks are loaded.
+     */
+    public static void preload(final ServerLevel world, final double x, final double z, final int radius,
+                               final Priority priority, final Runnable onLoad) {
+        final int chunkX = Mth.floor(x) >> 4;
+        final int chunkZ = Mth.floor(z) >> 4;
+
+        final ChunkHolderManager chunkHolderManager = ((ChunkSystemServerLevel)world).moonrise$getChunkTaskScheduler().chunkHolderManager;
+        final int ticketLevel = ChunkTaskScheduler.getTicketLevel(ChunkStatus.FULL);
+        final Long identifier = Long.valueOf(TELEPORT_IDS.getAndIncrement());
+
+        ((ChunkSystemServerLevel)world).moonrise$loadChunksAsync(
+            chunkX - radius, chunkX + radius, chunkZ - radius, chunkZ + radius, ChunkStatus.FULL, priority,
+            (final List<ChunkAccess> chunks) -> {
+                for (int i = 0, len = chunks.size(); i < len; ++i) {
+                    chunkHolderManager.addTicketAtLevel(TELEPORT, chunks.get(i).getPos(), ticketLevel, identifier);
+                }
+                if (onLoad != null) {
+                    onLoad.run();
+                }
+            }
+        );
+    }
+
+    public static Vec3 getDestination(final Entity entity, final TeleportTransition transition) {
+        final Vec3 position = transition.position();
+        return new Vec3(
+            transition.relatives().contains(Relative.X) ? entity.getX() + position.x : position.x,
+            transition.relatives().contains(Relative.Y) ? entity.getY() + position.y : position.y,
+            transition.relatives().contains(Relative.Z) ? entity.getZ() + position.z : position.z
+        );
+    }
+
+    /**
+     * Loads the destination of the transition, then teleports the entity on the main thread. The returned future
+     * completes with the teleported entity, or {@code null} if the entity was removed before the destination loaded
+     * or the teleport failed.
+     */
+    public static CompletableFuture<Entity> teleportAsync(final Entity entity, final TeleportTransition transition) {
+        final CompletableFuture<Entity> ret = new CompletableFuture<>();
+        final ServerLevel world = transition.newLevel();
+        final Vec3 destination = getDestination(entity, transition);
+
+        preload(world, destination.x, destination.z, getCoreRadius(entity), Priority.HIGHER, () -> {
+            scheduleTeleport(world.getServer(), () -> {
+                if (entity.isRemoved()) {
+                    ret.complete(null);
+                    return;
+                }
+                try {
+                    ret.complete(entity.teleport(transition));
+                } catch (final Throwable thr) {
+                    ret.completeExceptionally(thr);
+                }
+            });
+        });
+
+        return ret;
+    }
+
+    /**
+     * Runs the teleport on the main thread outside of chunk system callbacks, as moving an entity between worlds
+     * adds and removes tickets.
+     */
+    public static void scheduleTeleport(final MinecraftServer server, final Runnable run) {
+        server.tell(new TickTask(server.getTickCount(), run));
+    }
+
+    private AsyncTeleport() {}
+}
@@ -0,0 +1,82 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import net.minecraft.Util;
+import net.minecraft.server.level.ServerPlayer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines which chunks the player chunk loader loads, ticks and sends for a player. Profiles are either selected
+ * automatically from the player's state, or set per player through
+ * {@link RegionizedPlayerChunkLoader#setAPILoadingProfile(ServerPlayer, ChunkLoadingProfile)}.
+ */
+public enum ChunkLoadingProfile {
+
+    /**
+     * Loads, generates, ticks and sends chunks up to the player's distances.
+     */
+    FULL(true, true, true),
+
+    /**
+     * Keeps the player's distances and the chunks already sent, but sends no new chunks until the profile changes.
+     * Automatically selected for players without input for the configured AFK time, once every chunk around the
+     * player was sent and only until the player leaves its chunk (i.e when teleported or moved by a vehicle).
+     */
+    AFK(false, true, true),
+
+    /**
+     * Loads and sends chunks up to the player's distances, but does not keep chunks ticking. Chunks are only
+     * generated if the spectatorsGenerateChunks gamerule allows it. Automatically selected for spectators.
+     */
+    SPECTATOR(true, true, false);
+
+    private static volatile boolean automatic;
+    private static volatile long afkTime = TimeUnit.MINUTES.toMillis(5L);
+
+    public static void init(final boolean automatic, final long afkTimeNS) {
+        ChunkLoadingProfile.afkTime = Math.max(0L, TimeUnit.NANOSECONDS.toMillis(afkTimeNS));
+        ChunkLoadingProfile.automatic = automatic;
+    }
+
+    public static ChunkLoadingProfile select(final ServerPlayer player) {
+        if (!automatic) {
+            return FULL;
+        }
+        if (player.isSpectator()) {
+            return SPECTATOR;
+        }
+        if (isAfk(player)) {
+            return AFK;
+        }
+        return FULL;
+    }
+
+    /**
+     * Returns whether the player has had no input for the configured AFK time. This is the only AFK check of the
+     * player chunk loader, and does not depend on whether profiles are selected automatically.
+     */
+    public static boolean isAfk(final ServerPlayer player) {
+        return (Util.getMillis() - player.getLastActionTime()) >= afkTime;
+    }
+
+    private final boolean sendChunks;
+    private final boolean generate;
+    private final boolean tickTickets;
+
+    private ChunkLoadingProfile(final boolean sendChunks, final boolean generate, final boolean tickTickets) {
+        this.sendChunks = sendChunks;
+        this.generate = generate;
+        this.tickTickets = tickTickets;
+    }
+
+    public boolean sendsChunks() {
+        return this.sendChunks;
+    }
+
+    public boolean canGenerate() {
+        return this.generate;
+    }
+
+    public boolean hasTickTickets() {
+        return this.tickTickets;
+    }
+}
@@ -0,0 +1,349 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import ca.spottedleaf.concurrentutil.executor.PrioritisedExecutor;
+import ca.spottedleaf.concurrentutil.util.Priority;
+import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
+import ca.spottedleaf.moonrise.common.util.TickThread;
+import ca.spottedleaf.moonrise.common.util.WorldUtil;
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunk;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacketData;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayDeque;
+
+/**
+ * Shares the chunk packet of a chunk between every player it is sent to, so that players loading the same area
+ * (i.e at spawn) do not each pay for building the packet and copying the light data.
+ * <p>
+ * The packet is stored on the chunk itself and is dropped by the chunk whenever it is marked unsaved, which
+ * covers block, block entity, biome and light changes. A packet is only cached if its chunk is requested again
+ * within {@link #MAX_AGE_TICKS}, as most chunks are only ever sent to a single player. Cached packets are retained
+ * for a short time and up to {@link #MAX_CACHED_BYTES}, as otherwise every loaded chunk that was sent once would
+ * hold its packet.
+ * </p>
+ * <p>
+ * If enabled, packets are built on the worker pool from a {@link ChunkPacketSnapshot}. A packet built from a
+ * snapshot is only used if the chunk did not change since the snapshot was taken, otherwise it is rebuilt on the
+ * main thread when it is sent.
+ * </p>
+ * <p>
+ * For players using the chunk cache protocol, the encoded packet and its hash are cached alongside the packet (see
+ * {@link ChunkCacheProtocol}).
+ * </p>
+ */
+public final class ChunkPacketCache {
+
+    private static final long MAX_CACHED_BYTES = 32L * 1024L * 1024L;
+    private static final long MAX_AGE_TICKS = 100L;
+    private static final long NO_REQUEST = Long.MIN_VALUE;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkPacketCache.class);
+
+    private static volatile boolean buildOffMain = true;
+
+    public static void setBuildOffMain(final boolean buildOffMain) {
+        ChunkPacketCache.buildOffMain = buildOffMain;
+    }
+
+    private final ServerLevel world;
+    private final ArrayDeque<CachedPacket> cached = new ArrayDeque<>();
+    private long cachedBytes;
+    // game time of the last request for each chunk requested within MAX_AGE_TICKS
+    private final Long2LongOpenHashMap lastRequest = new Long2LongOpenHashMap();
+    // the packet last taken, so that the vanilla send following takePacket does not rebuild an uncached packet
+    private LevelChunk takenChunk;
+    private int takenVersion;
+    private ClientboundLevelChunkWithLightPacket takenPacket;
+    // packets being built off-main, so that players requesting the same chunk share the build
+    private final Long2ObjectOpenHashMap<PendingPacket> building = new Long2ObjectOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<ClientboundLevelChunkWithLightPacket, ChunkCacheProtocol.EncodedChunk> encoded = new Reference2ObjectOpenHashMap<>();
+    private long hits;
+    private long misses;
+    private long builtOffMain;
+    private long staleBuilds;
+    private long encodedOnMain;
+
+    public ChunkPacketCache(final ServerLevel world) {
+        this.world = world;
+        this.lastRequest.defaultReturnValue(NO_REQUEST);
+    }
+
+    public ClientboundLevelChunkWithLightPacket getOrCreatePacket(final LevelChunk chunk) {
+        TickThread.ensureTickThread(this.world, chunk.getPos(), "Cannot build chunk packet off-main");
+
+        final ChunkSystemLevelChunk systemChunk = (ChunkSystemLevelChunk)chunk;
+        final ClientboundLevelChunkWithLightPacket cached = systemChunk.moonrise$getCachedChunkPacket();
+        if (cached != null) {
+            ++this.hits;
+            return cached;
+        }
+
+        if (this.takenChunk == chunk && this.takenVersion == systemChunk.moonrise$getChunkPacketVersion()) {
+            return this.takenPacket;
+        }
+
+        return this.createPacket(chunk, this.onRequest(chunk));
+    }
+
+    private ClientboundLevelChunkWithLightPacket createPacket(final LevelChunk chunk, final boolean cache) {
+        ++this.misses;
+        final ClientboundLevelChunkWithLightPacket ret = new ClientboundLevelChunkWithLightPacket(chunk, this.world.getLightEngine(), null, null);
+        if (cache) {
+            this.cache(chunk, ret);
+        }
+
+        return ret;
+    }
+
+    // returns whether the chunk was already requested within MAX_AGE_TICKS, i.e whether its packet is worth caching
+    private boolean onRequest(final LevelChunk chunk) {
+        final long time = this.world.getGameTime();
+        final long prev = this.lastRequest.put(CoordinateUtils.getChunkKey(chunk.getPos()), time);
+        return prev != NO_REQUEST && (time - prev) <= MAX_AGE_TICKS;
+    }
+
+    private static long getSize(final ClientboundLevelChunkWithLightPacket packet) {
+        // excludes the block entity data, which is usually small in comparison
+        final ClientboundLightUpdatePacketData light = packet.getLightData();
+        return (long)packet.getChunkData().getReadBuffer().readableBytes()
+            + (long)DataLayer.SIZE * (long)(light.getSkyUpdates().size() + light.getBlockUpdates().size());
+    }
+
+    private void cache(final LevelChunk chunk, final ClientboundLevelChunkWithLightPacket packet) {
+        ((ChunkSystemLevelChunk)chunk).moonrise$setCachedChunkPacket(packet);
+
+        final CachedPacket cached = new CachedPacket(chunk, packet, this.world.getGameTime(), getSize(packet));
+        this.cached.addLast(cached);
+        this.cachedBytes += cached.size();
+        this.trim();
+    }
+
+    private void trim() {
+        while (this.cachedBytes > MAX_CACHED_BYTES && !this.cached.isEmpty()) {
+            this.drop(this.cached.removeFirst());
+        }
+    }
+
+    private void drop(final CachedPacket cached) {
+        cached.drop();
+        this.cachedBytes -= cached.size();
+        final ChunkCacheProtocol.EncodedChunk encoded = this.encoded.remove(cached.packet());
+        if (encoded != null) {
+            this.cachedBytes -= (long)encoded.data().length;
+        }
+    }
+
+    /**
+     * Returns the packet for the specified chunk, which may still be building on the worker pool. The packet must
+     * be retrieved with {@link #takePacket(PendingPacket)} once {@link PendingPacket#isDone()} returns {@code true}.
+     * If {@code encode} is {@code true}, the packet is also encoded for the chunk cache protocol while it is built.
+     */
+    public PendingPacket requestPacket(final LevelChunk chunk, final boolean encode) {
+        TickThread.ensureTickThread(this.world, chunk.getPos(), "Cannot request chunk packet off-main");
+
+        final ChunkSystemLevelChunk systemChunk = (ChunkSystemLevelChunk)chunk;
+        final boolean reused = this.onRequest(chunk);
+        final ClientboundLevelChunkWithLightPacket cached = systemChunk.moonrise$getCachedChunkPacket();
+        if (cached != null) {
+            ++this.hits;
+            return new PendingPacket(chunk, systemChunk.moonrise$getChunkPacketVersion(), cached);
+        }
+
+        if (!buildOffMain) {
+            return new PendingPacket(chunk, systemChunk.moonrise$getChunkPacketVersion(), this.createPacket(chunk, reused));
+        }
+
+        final long chunkKey = CoordinateUtils.getChunkKey(chunk.getPos());
+        final PendingPacket building = this.building.get(chunkKey);
+        // the holder may have unloaded and loaded a new chunk at the same position since
+        if (building != null && building.chunk == chunk && building.isCurrent()) {
+            ++this.hits;
+            // may be too late if the build already started, in which case the packet is encoded when taken
+            building.encode |= encode;
+            building.reused = true;
+            return building;
+        }
+
+        ++this.misses;
+        ++this.builtOffMain;
+
+        final PendingPacket ret = new PendingPacket(chunk, systemChunk.moonrise$getChunkPacketVersion(), ChunkPacketSnapshot.take(chunk));
+        ret.encode = encode;
+        ret.reused = reused;
+        this.building.put(chunkKey, ret);
+
+        final PrioritisedExecutor.PrioritisedTask task = ((ChunkSystemServerLevel)this.world).moonrise$getChunkTaskScheduler()
+            .packetExecutor.createTask(() -> ret.build(ChunkPacketCache.this.world), Priority.HIGH);
+        task.queue();
+
+        return ret;
+    }
+
+    public ClientboundLevelChunkWithLightPacket takePacket(final PendingPacket pending) {
+        TickThread.ensureTickThread(this.world, pending.chunk.getPos(), "Cannot take chunk packet off-main");
+
+        final ChunkSystemLevelChunk systemChunk = (ChunkSystemLevelChunk)pending.chunk;
+        ClientboundLevelChunkWithLightPacket ret = pending.packet;
+        if (ret == null || !pending.isCurrent()) {
+            // failed to build, or the chunk changed after the snapshot and the built packet would revert the change
+            // on the client
+            ++this.staleBuilds;
+            ret = systemChunk.moonrise$getCachedChunkPacket();
+            if (ret == null) {
+                ret = this.createPacket(pending.chunk, pending.reused);
+            }
+        } else if (pending.reused && systemChunk.moonrise$getCachedChunkPacket() == null) {
+            this.cache(pending.chunk, ret);
+        }
+
+        this.takenChunk = pending.chunk;
+        this.takenVersion = systemChunk.moonrise$getChunkPacketVersion();
+        this.takenPacket = ret;
+
+        return ret;
+    }
+
+    /**
+     * Returns the encoded form of the specified packet, which must have been returned by
+     * {@link #takePacket(PendingPacket)} for the specified pending packet.
+     */
+    public ChunkCacheProtocol.EncodedChunk getEncoded(final PendingPacket pending, final ClientboundLevelChunkWithLightPacket packet) {
+        TickThread.ensureTickThread(this.world, pending.chunk.getPos(), "Cannot encode chunk packet off-main");
+
+        ChunkCacheProtocol.EncodedChunk ret = this.encoded.get(packet);
+        if (ret != null) {
+            return ret;
+        }
+
+        ret = pending.packet == packet ? pending.encoded : null;
+        if (ret == null) {
+            ++this.encodedOnMain;
+            ret = ChunkCacheProtocol.encode(packet, this.world.registryAccess());
+        }
+
+        if (((ChunkSystemLevelChunk)pending.chunk).moonrise$getCachedChunkPacket() == packet) {
+            this.encoded.put(packet, ret);
+            this.cachedBytes += (long)ret.data().length;
+            this.trim();
+        }
+
+        return ret;
+    }
+
+    public void tick() {
+        final long expireBefore = this.world.getGameTime() - MAX_AGE_TICKS;
+        CachedPacket head;
+        while ((head = this.cached.peekFirst()) != null && head.created <= expireBefore) {
+            this.drop(this.cached.removeFirst());
+        }
+
+        for (final ObjectIterator<Long2LongMap.Entry> iterator = this.lastRequest.long2LongEntrySet().fastIterator(); iterator.hasNext();) {
+            if (iterator.next().getLongValue() < expireBefore) {
+                iterator.remove();
+            }
+        }
+
+        this.takenChunk = null;
+        this.takenPacket = null;
+
+        for (final ObjectIterator<Long2ObjectMap.Entry<PendingPacket>> iterator = this.building.long2ObjectEntrySet().fastIterator(); iterator.hasNext();) {
+            final PendingPacket pending = iterator.next().getValue();
+            if (pending.isDone() || !pending.isCurrent()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("cached", this.cached.size());
+        ret.addProperty("cached_bytes", this.cachedBytes);
+        ret.addProperty("hits", this.hits);
+        ret.addProperty("misses", this.misses);
+        ret.addProperty("building", this.building.size());
+        ret.addProperty("built_off_main", this.builtOffMain);
+        ret.addProperty("stale_builds", this.staleBuilds);
+        ret.addProperty("encoded", this.encoded.size());
+        ret.addProperty("encoded_on_main", this.encodedOnMain);
+
+        return ret;
+    }
+
+    public static final class PendingPacket {
+
+        private final LevelChunk chunk;
+        private final int version;
+        private ChunkPacketSnapshot snapshot;
+        private volatile ClientboundLevelChunkWithLightPacket packet;
+        private volatile boolean failed;
+        private volatile boolean encode;
+        // only accessed by the main thread
+        private boolean reused;
+        private volatile ChunkCacheProtocol.EncodedChunk encoded;
+
+        private PendingPacket(final LevelChunk chunk, final int version, final ClientboundLevelChunkWithLightPacket packet) {
+            this.chunk = chunk;
+            this.version = version;
+            this.packet = packet;
+        }
+
+        private PendingPacket(final LevelChunk chunk, final int version, final ChunkPacketSnapshot snapshot) {
+            this.chunk = chunk;
+            this.version = version;
+            this.snapshot = snapshot;
+        }
+
+        private void build(final ServerLevel world) {
+            final ChunkPacketSnapshot snapshot = this.snapshot;
+            this.snapshot = null;
+            try {
+                final ClientboundLevelChunkWithLightPacket packet = snapshot.build(world.getLightEngine());
+                if (this.encode) {
+                    // must be set before the packet, as the main thread checks for completion using the packet
+                    this.encoded = ChunkCacheProtocol.encode(packet, world.registryAccess());
+                }
+                this.packet = packet;
+            } catch (final Throwable thr) {
+                LOGGER.error("Failed to build chunk packet for " + this.chunk.getPos() + " in world '" + WorldUtil.getWorldName(world) + "', it will be built on the main thread", thr);
+                this.failed = true;
+            }
+        }
+
+        private boolean isCurrent() {
+            return ((ChunkSystemLevelChunk)this.chunk).moonrise$getChunkPacketVersion() == this.version;
+        }
+
+        public LevelChunk getChunk() {
+            return this.chunk;
+        }
+
+        public boolean isDone() {
+            return this.packet != null || this.failed;
+        }
+    }
+
+    private static record CachedPacket(LevelChunk chunk, ClientboundLevelChunkWithLightPacket packet, long created, long size) {
+
+        private void drop() {
+            final ChunkSystemLevelChunk systemChunk = (ChunkSystemLevelChunk)this.chunk;
+            // the chunk may have dropped the packet and cached a newer one
+            if (systemChunk.moonrise$getCachedChunkPacket() == this.packet) {
+                systemChunk.moonrise$setCachedChunkPacket(null);
+            }
+        }
+    }
+}
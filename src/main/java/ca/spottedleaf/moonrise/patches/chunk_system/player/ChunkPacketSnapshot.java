@@ -0,0 +1,102 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import ca.spottedleaf.moonrise.common.util.TickThread;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunkSection;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkPacketData;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of a chunk that the chunk packet reads, captured on the main thread so that the packet may be
+ * built on another thread. The block and biome containers are shared copy-on-write with the chunk (see
+ * {@link ChunkSystemLevelChunkSection#moonrise$snapshot()}), and the block entity data is created up front as
+ * block entities may only be read by the main thread.
+ * <p>
+ * Light is not captured, it is read while building the packet as the light engine supports reads from any thread.
+ * Light changes mark the chunk unsaved on the main thread, so a packet which read light during a change is stale
+ * and is rebuilt when taken (see {@link ChunkPacketCache#takePacket}).
+ * </p>
+ */
+public final class ChunkPacketSnapshot {
+
+    private static final ThreadLocal<ChunkPacketSnapshot> CURRENT = new ThreadLocal<>();
+
+    private final LevelChunk chunk;
+    private final LevelChunkSection[] sections;
+    private final List<Map.Entry<Heightmap.Types, Heightmap>> heightmaps;
+    private final List<ClientboundLevelChunkPacketData.BlockEntityInfo> blockEntities;
+
+    private ChunkPacketSnapshot(final LevelChunk chunk, final LevelChunkSection[] sections,
+                                final List<Map.Entry<Heightmap.Types, Heightmap>> heightmaps,
+                                final List<ClientboundLevelChunkPacketData.BlockEntityInfo> blockEntities) {
+        this.chunk = chunk;
+        this.sections = sections;
+        this.heightmaps = heightmaps;
+        this.blockEntities = blockEntities;
+    }
+
+    public static ChunkPacketSnapshot take(final LevelChunk chunk) {
+        TickThread.ensureTickThread(chunk.getLevel(), chunk.getPos(), "Cannot snapshot chunk off-main");
+
+        final LevelChunkSection[] liveSections = chunk.getSections();
+        final LevelChunkSection[] sections = new LevelChunkSection[liveSections.length];
+        for (int i = 0; i < liveSections.length; ++i) {
+            sections[i] = ((ChunkSystemLevelChunkSection)liveSections[i]).moonrise$snapshot();
+        }
+
+        final List<Map.Entry<Heightmap.Types, Heightmap>> heightmaps = new ArrayList<>();
+        for (final Map.Entry<Heightmap.Types, Heightmap> entry : chunk.getHeightmaps()) {
+            final Heightmap.Types type = entry.getKey();
+            if (!type.sendToClient()) {
+                continue;
+            }
+            final Heightmap copy = new Heightmap(chunk, type);
+            copy.setRawData(chunk, type, entry.getValue().getRawData());
+            heightmaps.add(Map.entry(type, copy));
+        }
+
+        final List<ClientboundLevelChunkPacketData.BlockEntityInfo> blockEntities = new ArrayList<>(chunk.getBlockEntities().size());
+        for (final BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            blockEntities.add(ClientboundLevelChunkPacketData.BlockEntityInfo.create(blockEntity));
+        }
+
+        return new ChunkPacketSnapshot(chunk, sections, heightmaps, blockEntities);
+    }
+
+    /**
+     * Returns the snapshot being built on the current thread for the specified chunk, or {@code null} if the packet
+     * is being built from the live chunk.
+     */
+    public static ChunkPacketSnapshot getCurrent(final LevelChunk chunk) {
+        final ChunkPacketSnapshot current = CURRENT.get();
+        return current == null || current.chunk != chunk ? null : current;
+    }
+
+    public ClientboundLevelChunkWithLightPacket build(final LevelLightEngine lightEngine) {
+        CURRENT.set(this);
+        try {
+            return new ClientboundLevelChunkWithLightPacket(this.chunk, lightEngine, null, null);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    public LevelChunkSection[] getSections() {
+        return this.sections;
+    }
+
+    public List<Map.Entry<Heightmap.Types, Heightmap>> getHeightmaps() {
+        return this.heightmaps;
+    }
+
+    public List<ClientboundLevelChunkPacketData.BlockEntityInfo> getBlockEntities() {
+        return this.blockEntities;
+    }
+}
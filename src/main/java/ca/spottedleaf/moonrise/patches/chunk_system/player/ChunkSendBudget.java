@@ -0,0 +1,96 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import com.google.gson.JsonObject;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-wide chunk send budget, shared by the player chunk loaders of every world. Worlds tick one after another,
+ * and each world receives a share of what is left of the tick's budget proportional to its players with chunks to
+ * send, measured against the players of the worlds which have yet to tick. Budget a world does not use is left to
+ * the worlds after it. The world's chunk loader then splits its share between its players (see
+ * {@link RegionizedPlayerChunkLoader}).
+ * <p>
+ * The budget is counted in chunks, as the size of a chunk packet is not known until it has been built.
+ * </p>
+ */
+public final class ChunkSendBudget {
+
+    private static final long MAX_GRANULARITY = TimeUnit.SECONDS.toNanos(1L);
+
+    private static volatile double maxRate = -1.0;
+
+    private static double allocation;
+    // the part of this tick's budget not yet sent by any world
+    private static double tickAllocation;
+    // players of the worlds which already received their share this tick
+    private static int tickPlayersServed;
+    private static long lastRefill = System.nanoTime();
+    private static int lastRefillTick = Integer.MIN_VALUE;
+    private static long totalSent;
+
+    public static void init(final double maxRate) {
+        ChunkSendBudget.maxRate = maxRate;
+    }
+
+    public static boolean isEnabled() {
+        return maxRate > 0.0;
+    }
+
+    /**
+     * Returns the number of chunks the specified world may send this tick. Must be invoked once per tick by every
+     * world, even those without players to send to. The chunks actually sent must be reported with
+     * {@link #consume(int)}.
+     */
+    public static synchronized int getWorldAllocation(final ServerLevel world, final int activePlayers) {
+        final double rate = maxRate;
+        final MinecraftServer server = world.getServer();
+        final int tick = server.getTickCount();
+        if (tick != lastRefillTick) {
+            lastRefillTick = tick;
+
+            final long time = System.nanoTime();
+            final long diff = Math.min(MAX_GRANULARITY, time - lastRefill);
+            lastRefill = time;
+
+            // allow at most one second of unused budget to build up
+            allocation = Math.min(rate, allocation + rate * ((double)diff * 1.0E-9));
+            tickAllocation = allocation;
+            tickPlayersServed = 0;
+        }
+
+        if (activePlayers <= 0) {
+            tickPlayersServed += world.players().size();
+            return 0;
+        }
+
+        // the worlds which have yet to tick may have players to send to, so the first world to tick must not take
+        // the entire budget. players of the worlds which already ticked no longer count, so that the budget they
+        // left unused goes to the worlds after them
+        final int laterPlayers = Math.max(0, server.getPlayerCount() - tickPlayersServed - world.players().size());
+        tickPlayersServed += world.players().size();
+        final double share = tickAllocation * ((double)activePlayers / (double)(activePlayers + laterPlayers));
+
+        return (int)Math.floor(Math.max(0.0, Math.min(allocation, share)));
+    }
+
+    public static synchronized void consume(final int chunks) {
+        allocation -= (double)chunks;
+        tickAllocation -= (double)chunks;
+        totalSent += (long)chunks;
+    }
+
+    public static synchronized JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("enabled", isEnabled());
+        ret.addProperty("max_rate", maxRate);
+        ret.addProperty("allocation", allocation);
+        ret.addProperty("total_sent", totalSent);
+
+        return ret;
+    }
+
+    private ChunkSendBudget() {}
+}
@@ -0,0 +1,121 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import com.google.gson.JsonObject;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import net.minecraft.network.Connection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts the chunk send rate of a player to the backpressure of its connection, so that chunk data does not queue
+ * up in front of movement and chat packets for players on slow links.
+ * <p>
+ * The rate is adjusted AIMD-style: once the outbound buffer of the channel is congested for
+ * {@link #CONGESTED_SAMPLES} consecutive samples during which chunks were written, the rate is halved, and
+ * otherwise it is raised by a fixed step per second. A sample without written chunks says nothing about the chunk
+ * rate, so it neither counts towards nor resets congestion. The rate always stays between the configured floor and
+ * the maximum send rate.
+ * </p>
+ */
+public final class ChunkSendPacer {
+
+    private static final long ADJUST_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500L);
+    private static final double DECREASE_FACTOR = 0.5;
+    // a single congested sample may be a transient burst of other packets
+    private static final int CONGESTED_SAMPLES = 2;
+    // in chunks per second, per second
+    private static final double INCREASE_PER_SECOND = 25.0;
+
+    private static volatile boolean enabled = true;
+    private static volatile double minRate = 5.0;
+
+    public static void init(final boolean enabled, final double minRate) {
+        ChunkSendPacer.enabled = enabled;
+        ChunkSendPacer.minRate = Math.max(1.0, minRate);
+    }
+
+    // < 0.0 if not yet initialised to the max rate
+    private double rate = -1.0;
+    private double maxRate;
+    private double observedRate;
+    private long sentSinceAdjust;
+    private long lastAdjust;
+    private boolean congested;
+    private int congestedSamples;
+    private long decreases;
+
+    public void reset(final long time) {
+        this.rate = -1.0;
+        this.observedRate = 0.0;
+        this.sentSinceAdjust = 0L;
+        this.lastAdjust = time;
+        this.congested = false;
+        this.congestedSamples = 0;
+    }
+
+    // called once chunks are written to the connection, not when queued
+    public void onSend(final int chunks) {
+        this.sentSinceAdjust += (long)chunks;
+    }
+
+    public double getRate(final long time, final Connection connection, final double maxRate) {
+        this.maxRate = maxRate;
+        if (!enabled) {
+            return maxRate;
+        }
+
+        if (this.rate < 0.0) {
+            this.rate = maxRate;
+        }
+
+        final long diff = time - this.lastAdjust;
+        if (diff >= ADJUST_INTERVAL) {
+            this.lastAdjust = time;
+
+            final double seconds = (double)diff * 1.0E-9;
+            final long sent = this.sentSinceAdjust;
+            final double sampledRate = (double)sent / seconds;
+            this.sentSinceAdjust = 0L;
+            this.observedRate = 0.75 * this.observedRate + 0.25 * sampledRate;
+
+            this.congested = isCongested(connection);
+            if (!this.congested) {
+                this.congestedSamples = 0;
+                this.rate += INCREASE_PER_SECOND * seconds;
+            } else if (sent != 0L && ++this.congestedSamples >= CONGESTED_SAMPLES) {
+                this.congestedSamples = 0;
+                this.rate *= DECREASE_FACTOR;
+                ++this.decreases;
+            }
+        }
+
+        return this.rate = Math.max(Math.min(minRate, maxRate), Math.min(maxRate, this.rate));
+    }
+
+    private static boolean isCongested(final Connection connection) {
+        final Channel channel = connection.channel;
+        if (channel == null) {
+            return false;
+        }
+        if (!channel.isWritable()) {
+            return true;
+        }
+
+        // try to back off before the channel becomes unwritable, as by then other packets are already delayed
+        final ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        return outboundBuffer != null && outboundBuffer.totalPendingWriteBytes() >= (long)(channel.config().getWriteBufferHighWaterMark() / 2);
+    }
+
+    public JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("adaptive", enabled);
+        ret.addProperty("rate", enabled && this.rate >= 0.0 ? this.rate : this.maxRate);
+        ret.addProperty("max_rate", this.maxRate);
+        ret.addProperty("observed_rate", this.observedRate);
+        ret.addProperty("congested", this.congested);
+        ret.addProperty("decreases", this.decreases);
+
+        return ret;
+    }
+}
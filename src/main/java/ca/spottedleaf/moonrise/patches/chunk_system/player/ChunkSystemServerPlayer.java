@@ -12,4 +12,9 @@ public interface ChunkSystemServerPlayer {
 
     public RegionizedPlayerChunkLoader.ViewDistanceHolder moonrise$getViewDistanceHolder();
 
+    // null if the profile is selected automatically
+    public ChunkLoadingProfile moonrise$getLoadingProfileOverride();
+
+    public void moonrise$setLoadingProfileOverride(final ChunkLoadingProfile profile);
+
 }
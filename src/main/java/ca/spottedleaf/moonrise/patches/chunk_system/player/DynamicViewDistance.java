@@ -0,0 +1,164 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.player;
+
+import com.google.gson.JsonObject;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lowers the load and tick distances of players while the server is overloaded, either because the MSPT is above
+ * the configured target or because the chunk system cannot keep up with the chunks players request.
+ * <p>
+ * The reduction is raised one step at a time while the overload persists, and lowered one step at a time once the
+ * server has had headroom for the recovery time. Low priority players (i.e AFK, spectating or moving fast) are
+ * reduced first, as the first steps only apply to them. The resulting distances never go below the configured
+ * minimums, or below what the world and player configure if that is lower.
+ * </p>
+ */
+public final class DynamicViewDistance {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynamicViewDistance.class);
+
+    private static final long SAMPLE_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+    // the reduction steps which only apply to low priority players
+    private static final int LOW_PRIORITY_STEPS = 2;
+    // the fraction of players with a saturated chunk queue above which the chunk system is considered overloaded
+    private static final double SATURATION_THRESHOLD = 0.5;
+    // the MSPT must drop this far below the target before recovering
+    private static final double RECOVERY_MSPT_FACTOR = 0.8;
+
+    private static volatile boolean enabled;
+    private static volatile double targetMSPT = 45.0;
+    private static volatile int minLoadDistance = 5;
+    private static volatile int minTickDistance = 3;
+    private static volatile long reduceTime = TimeUnit.SECONDS.toNanos(5L);
+    private static volatile long recoveryTime = TimeUnit.SECONDS.toNanos(30L);
+
+    private static volatile int reduction;
+
+    private static long lastSample = System.nanoTime() - SAMPLE_INTERVAL;
+    private static long overloadedSince = Long.MIN_VALUE;
+    private static long headroomSince = Long.MIN_VALUE;
+    private static int saturatedPlayers;
+    private static int totalPlayers;
+    private static double lastMSPT;
+    private static double lastSaturation;
+
+    public static void init(final boolean enabled, final double targetMSPT, final int minViewDistance,
+                            final int minSimulationDistance, final long reduceTimeNS, final long recoveryTimeNS) {
+        DynamicViewDistance.targetMSPT = Math.max(1.0, targetMSPT);
+        // the load distance is the view distance + 1
+        DynamicViewDistance.minLoadDistance = Math.max(RegionizedPlayerChunkLoader.MIN_VIEW_DISTANCE, minViewDistance) + 1;
+        DynamicViewDistance.minTickDistance = Math.max(0, minSimulationDistance);
+        DynamicViewDistance.reduceTime = Math.max(0L, reduceTimeNS);
+        DynamicViewDistance.recoveryTime = Math.max(0L, recoveryTimeNS);
+        DynamicViewDistance.enabled = enabled;
+        if (!enabled) {
+            reduction = 0;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void reportChunkQueues(final int saturated, final int total) {
+        saturatedPlayers += saturated;
+        totalPlayers += total;
+    }
+
+    public static synchronized void tick(final MinecraftServer server) {
+        final long time = System.nanoTime();
+        if (time - lastSample < SAMPLE_INTERVAL) {
+            return;
+        }
+        lastSample = time;
+
+        final double saturation = totalPlayers == 0 ? 0.0 : (double)saturatedPlayers / (double)totalPlayers;
+        saturatedPlayers = 0;
+        totalPlayers = 0;
+
+        final double mspt = (double)server.getAverageTickTimeNanos() * 1.0E-6;
+        lastMSPT = mspt;
+        lastSaturation = saturation;
+
+        if (!enabled) {
+            overloadedSince = headroomSince = Long.MIN_VALUE;
+            return;
+        }
+
+        final double target = targetMSPT;
+        final boolean overloaded = mspt > target || saturation > SATURATION_THRESHOLD;
+        final boolean headroom = mspt < target * RECOVERY_MSPT_FACTOR && saturation <= SATURATION_THRESHOLD * 0.5;
+
+        if (overloaded) {
+            headroomSince = Long.MIN_VALUE;
+            if (overloadedSince == Long.MIN_VALUE) {
+                overloadedSince = time;
+            }
+            if (time - overloadedSince >= reduceTime && reduction < RegionizedPlayerChunkLoader.MAX_VIEW_DISTANCE) {
+                // restart the timer so that each further step requires the overload to persist again
+                overloadedSince = time;
+                setReduction(reduction + 1, mspt, saturation);
+            }
+            return;
+        }
+        overloadedSince = Long.MIN_VALUE;
+
+        if (!headroom || reduction == 0) {
+            headroomSince = Long.MIN_VALUE;
+            return;
+        }
+        if (headroomSince == Long.MIN_VALUE) {
+            headroomSince = time;
+        }
+        if (time - headroomSince >= recoveryTime) {
+            headroomSince = time;
+            setReduction(reduction - 1, mspt, saturation);
+        }
+    }
+
+    private static void setReduction(final int newReduction, final double mspt, final double saturation) {
+        final int oldReduction = reduction;
+        reduction = newReduction;
+
+        final String message = "Dynamic view distance reduction changed from " + oldReduction + " to " + newReduction
+            + " (MSPT: " + String.format("%.1f", mspt) + ", saturated chunk queues: " + String.format("%.0f", saturation * 100.0) + "%)";
+        if (newReduction > oldReduction) {
+            LOGGER.warn(message);
+        } else {
+            LOGGER.info(message);
+        }
+    }
+
+    private static int getReduction(final boolean lowPriority) {
+        final int reduction = DynamicViewDistance.reduction;
+        return lowPriority ? reduction : Math.max(0, reduction - LOW_PRIORITY_STEPS);
+    }
+
+    public static int reduceTickDistance(final int tickDistance, final boolean lowPriority) {
+        final int reduction = getReduction(lowPriority);
+        return reduction <= 0 ? tickDistance : Math.max(Math.min(tickDistance, minTickDistance), tickDistance - reduction);
+    }
+
+    // Note: the result must still be clamped to tick distance + 1 by the caller
+    public static int reduceLoadDistance(final int loadDistance, final boolean lowPriority) {
+        final int reduction = getReduction(lowPriority);
+        return reduction <= 0 ? loadDistance : Math.max(Math.min(loadDistance, minLoadDistance), loadDistance - reduction);
+    }
+
+    public static synchronized JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("enabled", enabled);
+        ret.addProperty("reduction", reduction);
+        ret.addProperty("mspt", lastMSPT);
+        ret.addProperty("target_mspt", targetMSPT);
+        ret.addProperty("saturated_chunk_queues", lastSaturation);
+
+        return ret;
+    }
+
+    private DynamicViewDistance() {}
+}
@@ -7,24 +7,38 @@ import ca.spottedleaf.moonrise.common.misc.AllocatingRateLimiter;
 import ca.spottedleaf.moonrise.common.misc.SingleUserAreaMap;
 import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
 import ca.spottedleaf.moonrise.common.util.TickThread;
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheProtocol;
+import ca.spottedleaf.moonrise.patches.chunk_cache.ChunkCacheSession;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemChunkHolder;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunk;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.MemoryPressureGovernor;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.PriorityAging;
 import ca.spottedleaf.moonrise.patches.chunk_system.util.ParallelSearchRadiusIteration;
 import com.google.gson.JsonObject;
 import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongComparator;
 import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.network.protocol.BundlerInfo;
 import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
 import net.minecraft.network.protocol.game.ClientboundForgetLevelChunkPacket;
+import net.minecraft.network.protocol.game.ClientboundLightUpdatePacket;
 import net.minecraft.network.protocol.game.ClientboundSetChunkCacheCenterPacket;
 import net.minecraft.network.protocol.game.ClientboundSetChunkCacheRadiusPacket;
 import net.minecraft.network.protocol.game.ClientboundSetSimulationDistancePacket;
+import net.minecraft.network.protocol.game.DebugPackets;
 import net.minecraft.server.level.ChunkTrackingView;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
@@ -38,6 +52,12 @@ import net.minecraft.world.level.chunk.status.ChunkStatus;
 import net.minecraft.world.level.levelgen.BelowZeroRetrogen;
 import java.lang.invoke.VarHandle;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -165,6 +185,20 @@ public final class RegionizedPlayerChunkLoader {
         return data.lastLoadDistance - 1;
     }
 
+    public static ChunkLoadingProfile getAPILoadingProfile(final ServerPlayer player) {
+        final PlayerChunkLoaderData data = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
+        if (data == null) {
+            final ChunkLoadingProfile override = ((ChunkSystemServerPlayer)player).moonrise$getLoadingProfileOverride();
+            return override == null ? ChunkLoadingProfile.select(player) : override;
+        }
+        return data.lastProfile;
+    }
+
+    // a null profile selects the profile automatically, the new profile is applied the next time the player is updated
+    public static void setAPILoadingProfile(final ServerPlayer player, final ChunkLoadingProfile profile) {
+        ((ChunkSystemServerPlayer)player).moonrise$setLoadingProfileOverride(profile);
+    }
+
     public static int getAPISendViewDistance(final ServerPlayer player) {
         final ServerLevel level = player.serverLevel();
         final PlayerChunkLoaderData data = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
@@ -175,9 +209,15 @@ public final class RegionizedPlayerChunkLoader {
     }
 
     private final ServerLevel world;
+    private final ChunkPacketCache chunkPacketCache;
 
     public RegionizedPlayerChunkLoader(final ServerLevel world) {
         this.world = world;
+        this.chunkPacketCache = new ChunkPacketCache(world);
+    }
+
+    public ChunkPacketCache getChunkPacketCache() {
+        return this.chunkPacketCache;
     }
 
     public void addPlayer(final ServerPlayer player) {
@@ -190,12 +230,42 @@ public final class RegionizedPlayerChunkLoader {
             throw new IllegalStateException("Player is already added to player chunk loader");
         }
 
+        // restore the worker pool before the player starts loading chunks
+        ((ChunkSystemServerLevel)this.world).moonrise$getChunkTaskScheduler().chunkHolderManager.exitIdle();
+
         final PlayerChunkLoaderData loader = new PlayerChunkLoaderData(this.world, player);
 
         ((ChunkSystemServerPlayer)player).moonrise$setChunkLoader(loader);
         loader.add();
     }
 
+    /**
+     * Queues the light of the specified sections of a chunk to be sent to the player at the end of the tick, if the
+     * player has received the chunk. A {@code null} filter marks every section of the light layer as changed.
+     */
+    public void queueLightUpdate(final ServerPlayer player, final int chunkX, final int chunkZ,
+                                 final BitSet skyChanged, final BitSet blockChanged) {
+        final PlayerChunkLoaderData loader = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
+        if (loader != null && !loader.removed && loader.world == this.world) {
+            loader.queueLightUpdate(chunkX, chunkZ, skyChanged, blockChanged);
+        }
+    }
+
+    /**
+     * Sends the queued light of the specified chunk to the players now instead of at the end of the tick, so that
+     * the players receive it before the block changes of the chunk which are broadcast afterwards.
+     */
+    public void flushLightUpdates(final List<ServerPlayer> players, final int chunkX, final int chunkZ) {
+        final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
+        final List<LightPacket> shared = new ArrayList<>(1);
+        for (int i = 0, len = players.size(); i < len; ++i) {
+            final PlayerChunkLoaderData loader = ((ChunkSystemServerPlayer)players.get(i)).moonrise$getChunkLoader();
+            if (loader != null && !loader.removed && loader.world == this.world) {
+                loader.flushLightUpdate(chunkKey, shared);
+            }
+        }
+    }
+
     public void updatePlayer(final ServerPlayer player) {
         final PlayerChunkLoaderData loader = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
         if (loader != null) {
@@ -279,7 +349,7 @@ public final class RegionizedPlayerChunkLoader {
             return false;
         }
 
-        return loader.sentChunks.contains(CoordinateUtils.getChunkKey(chunkX, chunkZ));
+        return loader.isSent(CoordinateUtils.getChunkKey(chunkX, chunkZ));
     }
 
     public boolean isChunkSentBorderOnly(final ServerPlayer player, final int chunkX, final int chunkZ) {
@@ -290,7 +360,7 @@ public final class RegionizedPlayerChunkLoader {
 
         for (int dz = -1; dz <= 1; ++dz) {
             for (int dx = -1; dx <= 1; ++dx) {
-                if (!loader.sentChunks.contains(CoordinateUtils.getChunkKey(dx + chunkX, dz + chunkZ))) {
+                if (!loader.isSent(CoordinateUtils.getChunkKey(dx + chunkX, dz + chunkZ))) {
                     return true;
                 }
             }
@@ -301,15 +371,113 @@ public final class RegionizedPlayerChunkLoader {
 
     public void tick() {
         TickThread.ensureTickThread("Cannot tick player chunk loader async");
+        MemoryPressureGovernor.tick();
+        DynamicViewDistance.tick(this.world.getServer());
+        PriorityAging.tick();
+        this.chunkPacketCache.tick();
         long currTime = System.nanoTime();
-        for (final ServerPlayer player : new java.util.ArrayList<>(this.world.players())) {
+        final boolean fairSend = ChunkSendBudget.isEnabled();
+        final List<PlayerChunkLoaderData> loaders = new ArrayList<>();
+        for (final ServerPlayer player : new ArrayList<>(this.world.players())) {
             final PlayerChunkLoaderData loader = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
             if (loader == null || loader.removed || loader.world != this.world) {
                 // not our problem anymore
                 continue;
             }
+            loader.sampleMovement(currTime);
             loader.update(); // can't invoke plugin logic
-            loader.updateQueues(currTime);
+            loader.updateQueues(currTime, fairSend);
+            loaders.add(loader);
+        }
+
+        int saturated = 0;
+        for (final PlayerChunkLoaderData loader : loaders) {
+            if (!loader.removed && loader.isChunkQueueSaturated()) {
+                ++saturated;
+            }
+        }
+        DynamicViewDistance.reportChunkQueues(saturated, loaders.size());
+
+        if (fairSend) {
+            this.sendChunksFairly(loaders);
+        }
+
+        // players receiving the same sections of a chunk share the light packet
+        final Long2ObjectOpenHashMap<List<LightPacket>> lightPackets = new Long2ObjectOpenHashMap<>();
+        for (final PlayerChunkLoaderData loader : loaders) {
+            if (!loader.removed) {
+                loader.flushLightUpdates(lightPackets);
+            }
+        }
+    }
+
+    private static record ChunkReference(ChunkCacheProtocol.ChunkHash hash, int version) {}
+
+    private static record LightPacket(BitSet skyChanged, BitSet blockChanged, ClientboundLightUpdatePacket packet) {}
+
+    private long fairSendRotation;
+
+    // splits this world's share of the server-wide send budget between its players with deficit round robin,
+    // sending the nearest queued chunks of every player before the farther chunks of any single player
+    private void sendChunksFairly(final List<PlayerChunkLoaderData> loaders) {
+        final List<PlayerChunkLoaderData> active = new ArrayList<>(loaders.size());
+        for (final PlayerChunkLoaderData loader : loaders) {
+            if (loader.getNextSendDistance() != Integer.MAX_VALUE) {
+                active.add(loader);
+            }
+        }
+
+        // must be requested even without players to send to, see getWorldAllocation
+        final int budget = ChunkSendBudget.getWorldAllocation(this.world, active.size());
+        if (!active.isEmpty()) {
+            // rotate the player served first, so that ties in distance do not always favour the same player
+            Collections.rotate(active, -(int)(this.fairSendRotation++ % (long)active.size()));
+
+            int remaining = budget;
+            while (remaining > 0 && !active.isEmpty()) {
+                final int remainingBefore = remaining;
+                final double quantum = (double)remaining / (double)active.size();
+                for (final PlayerChunkLoaderData loader : active) {
+                    loader.sendDeficit = Math.min(PlayerChunkLoaderData.MAX_SEND_DEFICIT, loader.sendDeficit + quantum);
+                }
+
+                int distance = Integer.MAX_VALUE;
+                for (final PlayerChunkLoaderData loader : active) {
+                    distance = Math.min(distance, loader.getNextSendDistance());
+                }
+
+                while (distance != Integer.MAX_VALUE && remaining > 0) {
+                    int nextDistance = Integer.MAX_VALUE;
+                    for (final PlayerChunkLoaderData loader : active) {
+                        while (remaining > 0 && loader.sendDeficit >= 1.0 && loader.getNextSendDistance() <= distance) {
+                            if (!loader.trySendFair()) {
+                                break;
+                            }
+                            --remaining;
+                        }
+                        if (loader.sendDeficit >= 1.0) {
+                            final int loaderDistance = loader.getNextSendDistance();
+                            if (loaderDistance > distance) {
+                                nextDistance = Math.min(nextDistance, loaderDistance);
+                            }
+                        }
+                    }
+                    distance = nextDistance;
+                }
+
+                active.removeIf((final PlayerChunkLoaderData loader) -> loader.getNextSendDistance() == Integer.MAX_VALUE);
+
+                if (remaining == remainingBefore) {
+                    // every player left is short on deficit, which carries over to the next tick
+                    break;
+                }
+            }
+
+            ChunkSendBudget.consume(budget - remaining);
+        }
+
+        for (final PlayerChunkLoaderData loader : loaders) {
+            loader.finishFairSend();
         }
     }
 
@@ -338,9 +506,65 @@ public final class RegionizedPlayerChunkLoader {
         private int lastSentSimulationDistance = Integer.MIN_VALUE;
 
         private boolean canGenerateChunks = true;
+        private boolean tickTickets = true;
+        private ChunkLoadingProfile lastProfile = ChunkLoadingProfile.FULL;
+        // chunk position at which the automatic AFK profile was entered, see getLoadingProfile
+        private int afkChunkX;
+        private int afkChunkZ;
+
+        // low priority player detection, see isLowPriority
+        private static final long MOVEMENT_SAMPLE_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+        // in blocks per second, above sprinting and below elytra flight
+        private static final double FAST_MOVEMENT_SPEED = 15.0;
+        // consecutive samples required to change movingFast, so that a single fast sample (i.e a short teleport or
+        // knockback) or a short stop does not flip the player's distances
+        private static final int MOVEMENT_SAMPLE_HYSTERESIS = 3;
+        private long lastMovementSample = Long.MIN_VALUE;
+        private double lastSampledX;
+        private double lastSampledZ;
+        private int movementSamples;
+        private boolean movingFast;
 
         private final ArrayDeque<ChunkHolderManager.TicketOperation<?, ?>> delayedTicketOps = new ArrayDeque<>();
         private final LongOpenHashSet sentChunks = new LongOpenHashSet();
+        // chunks in sentChunks whose packet is still queued, the client only knows about a chunk once it is written
+        private final LongOpenHashSet pendingChunks = new LongOpenHashSet();
+        // pending chunks sent as a reference, which are received once the client reports a cache hit
+        private final Long2ObjectOpenHashMap<ChunkReference> referencedChunks = new Long2ObjectOpenHashMap<>();
+        // packets queued behind chunk packets which are still being built, so that the client receives every packet
+        // (i.e chunk forget and chunk center packets) in the order it was sent
+        private final ArrayDeque<QueuedPacket> queuedPackets = new ArrayDeque<>();
+
+        // full is set for chunks the client's chunk cache missed, which must not be sent as a reference again
+        private static record QueuedPacket(ChunkPacketCache.PendingPacket chunkPacket, Packet<?> packet, boolean full) {}
+
+        // null if the player does not use the chunk cache protocol
+        private final ChunkCacheSession chunkCacheSession;
+
+        // sections of sent chunks whose light changed since the player received them, flushed once per tick
+        private final Long2ObjectLinkedOpenHashMap<PendingLight> pendingLight = new Long2ObjectLinkedOpenHashMap<>();
+        private long queuedLightUpdates;
+        private long sentLightPackets;
+
+        private static final class PendingLight {
+
+            // null if every section changed
+            private BitSet skyChanged = new BitSet();
+            private BitSet blockChanged = new BitSet();
+
+            private void add(final BitSet skyChanged, final BitSet blockChanged) {
+                this.skyChanged = merge(this.skyChanged, skyChanged);
+                this.blockChanged = merge(this.blockChanged, blockChanged);
+            }
+
+            private static BitSet merge(final BitSet into, final BitSet from) {
+                if (into == null || from == null) {
+                    return null;
+                }
+                into.or(from);
+                return into;
+            }
+        }
 
         private static final byte CHUNK_TICKET_STAGE_NONE           = 0;
         private static final byte CHUNK_TICKET_STAGE_LOADING        = 1;
@@ -366,6 +590,16 @@ public final class RegionizedPlayerChunkLoader {
         private final AllocatingRateLimiter chunkSendLimiter = new AllocatingRateLimiter(ALLOCATION_GRANULARITY);
         private final AllocatingRateLimiter chunkLoadTicketLimiter = new AllocatingRateLimiter(ALLOCATION_GRANULARITY);
         private final AllocatingRateLimiter chunkGenerateTicketLimiter = new AllocatingRateLimiter(ALLOCATION_GRANULARITY);
+        private final ChunkSendPacer sendPacer = new ChunkSendPacer();
+
+        // server-wide send budget state, see sendChunksFairly
+        private static final double MAX_SEND_DEFICIT = 4.0;
+        private double sendDeficit;
+        private long fairSendTime;
+        private double fairSendRate;
+        private int fairSendAllowance;
+        private int fairSent;
+        private boolean fairSendBlocked;
 
         // queues
         private final LongComparator CLOSEST_MANHATTAN_DIST = (final long c1, final long c2) -> {
@@ -395,6 +629,7 @@ public final class RegionizedPlayerChunkLoader {
         public PlayerChunkLoaderData(final ServerLevel world, final ServerPlayer player) {
             this.world = world;
             this.player = player;
+            this.chunkCacheSession = ChunkCacheProtocol.createSession(player);
         }
 
         private void flushDelayedTicketOps() {
@@ -409,34 +644,244 @@ public final class RegionizedPlayerChunkLoader {
             this.delayedTicketOps.addLast(op);
         }
 
+        private boolean isSent(final long chunkKey) {
+            return this.sentChunks.contains(chunkKey) && !this.pendingChunks.contains(chunkKey);
+        }
+
         private void sendChunk(final int chunkX, final int chunkZ) {
-            if (this.sentChunks.add(CoordinateUtils.getChunkKey(chunkX, chunkZ))) {
-                ((ChunkSystemChunkHolder)((ChunkSystemServerLevel)this.world).moonrise$getChunkTaskScheduler().chunkHolderManager
-                        .getChunkHolder(chunkX, chunkZ).vanillaChunkHolder).moonrise$addReceivedChunk(this.player);
+            final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
+            if (this.sentChunks.add(chunkKey)) {
+                // the chunk is marked as received once its packet is written, see writeChunkPacket
+                this.pendingChunks.add(chunkKey);
 
                 final LevelChunk chunk = ((ChunkSystemLevel)this.world).moonrise$getFullChunkIfLoaded(chunkX, chunkZ);
 
+                this.queuedPackets.addLast(new QueuedPacket(
+                    ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getChunkPacketCache().requestPacket(chunk, this.usesChunkCache()),
+                    null, false
+                ));
+                this.flushQueuedPackets(false);
+                return;
+            }
+            throw new IllegalStateException();
+        }
+
+        private void sendPacket(final Packet<?> packet) {
+            if (this.queuedPackets.isEmpty()) {
+                this.player.connection.send(packet);
+            } else {
+                this.queuedPackets.addLast(new QueuedPacket(null, packet, false));
+            }
+        }
+
+        // if force is true, chunk packets which are still building are built on the current thread
+        private void flushQueuedPackets(final boolean force) {
+            final ChunkPacketCache packetCache = ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getChunkPacketCache();
+
+            QueuedPacket queued;
+            while ((queued = this.queuedPackets.peekFirst()) != null) {
+                final ChunkPacketCache.PendingPacket chunkPacket = queued.chunkPacket();
+                if (chunkPacket == null) {
+                    this.player.connection.send(queued.packet());
+                } else {
+                    if (!force && !chunkPacket.isDone()) {
+                        break;
+                    }
+                    this.writeChunkPacket(packetCache, chunkPacket, queued.full());
+                }
+                this.queuedPackets.removeFirst();
+            }
+        }
+
+        // only once received is the chunk sent, so that block, entity and light updates for the chunk are not sent before it
+        private void markReceived(final LevelChunk chunk) {
+            final ChunkPos chunkPos = chunk.getPos();
+            if (this.pendingChunks.remove(CoordinateUtils.getChunkKey(chunkPos))) {
+                ((ChunkSystemChunkHolder)((ChunkSystemServerLevel)this.world).moonrise$getChunkTaskScheduler().chunkHolderManager
+                        .getChunkHolder(chunkPos.x, chunkPos.z).vanillaChunkHolder).moonrise$addReceivedChunk(this.player);
                 PlatformHooks.get().onChunkWatch(this.world, chunk, this.player);
+            }
+        }
+
+        private void writeChunkPacket(final ChunkPacketCache packetCache, final ChunkPacketCache.PendingPacket chunkPacket, final boolean full) {
+            final LevelChunk chunk = chunkPacket.getChunk();
+            final ChunkPos chunkPos = chunk.getPos();
+
+            this.sendPacer.onSend(1);
+
+            if (!this.usesChunkCache()) {
+                this.markReceived(chunk);
+                // caches the packet on the chunk, which the vanilla send picks up (see PlayerChunkSenderMixin)
+                packetCache.takePacket(chunkPacket);
                 PlayerChunkSender.sendChunk(this.player.connection, this.world, chunk);
                 return;
             }
-            throw new IllegalStateException();
+
+            final ClientboundLevelChunkWithLightPacket packet = packetCache.takePacket(chunkPacket);
+            final ChunkCacheProtocol.EncodedChunk encoded = packetCache.getEncoded(chunkPacket, packet);
+            if (!full && encoded.canCache() && this.chunkCacheSession.shouldReference(encoded.hash())) {
+                // stays pending until the client reports the result, see onChunkCacheResult
+                this.referencedChunks.put(
+                    CoordinateUtils.getChunkKey(chunkPos),
+                    new ChunkReference(encoded.hash(), ((ChunkSystemLevelChunk)chunk).moonrise$getChunkPacketVersion())
+                );
+                this.chunkCacheSession.onReferenceSent();
+                this.player.connection.send(new ClientboundCustomPayloadPacket(
+                    new ChunkCacheProtocol.ChunkReferencePayload(packet.getX(), packet.getZ(), encoded.hash())
+                ));
+                return;
+            }
+
+            this.markReceived(chunk);
+            if (!encoded.canCache()) {
+                this.player.connection.send(packet);
+            } else {
+                this.chunkCacheSession.onFullSent(encoded.hash());
+                this.player.connection.send(new ClientboundCustomPayloadPacket(
+                    new ChunkCacheProtocol.ChunkDataPayload(encoded.hash(), encoded.data())
+                ));
+            }
+            // Note: Check PlayerChunkSender#sendChunk for other logic
+            DebugPackets.sendPoiPacketsForChunk(this.world, chunkPos);
+        }
+
+        private void removeQueuedChunkPackets(final long chunkKey) {
+            this.queuedPackets.removeIf((final QueuedPacket queued) -> {
+                return queued.chunkPacket() != null && CoordinateUtils.getChunkKey(queued.chunkPacket().getChunk().getPos()) == chunkKey;
+            });
+        }
+
+        private boolean usesChunkCache() {
+            return this.chunkCacheSession != null && this.chunkCacheSession.isEnabled();
+        }
+
+        public void onChunkCacheResult(final boolean enabled, final int chunkX, final int chunkZ, final ChunkCacheProtocol.ChunkHash hash, final boolean hit) {
+            TickThread.ensureTickThread(this.player, "Cannot handle chunk cache result off-main");
+            if (this.removed || this.chunkCacheSession == null) {
+                return;
+            }
+
+            this.chunkCacheSession.onResult(enabled, hit ? 1 : 0, hit ? 0 : 1);
+
+            final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
+            final ChunkReference reference = this.referencedChunks.get(chunkKey);
+            // if the chunk is no longer sent, the client will receive it in full or as a reference once it is sent again
+            if (reference == null || !reference.hash().equals(hash)) {
+                return;
+            }
+            this.referencedChunks.remove(chunkKey);
+
+            final LevelChunk chunk = ((ChunkSystemLevel)this.world).moonrise$getFullChunkIfLoaded(chunkX, chunkZ);
+            if (chunk == null) {
+                return;
+            }
+
+            if (enabled && hit && ((ChunkSystemLevelChunk)chunk).moonrise$getChunkPacketVersion() == reference.version()) {
+                // queued behind any chunk packets still building, and before any update sent once the chunk is received
+                this.sendPacket(new ClientboundCustomPayloadPacket(new ChunkCacheProtocol.ChunkApplyPayload(chunkX, chunkZ, hash)));
+                this.markReceived(chunk);
+                // Note: Check PlayerChunkSender#sendChunk for other logic
+                DebugPackets.sendPoiPacketsForChunk(this.world, chunk.getPos());
+                return;
+            }
+
+            // missed, or the chunk changed since the reference was sent and the cached chunk is outdated
+            final ChunkPacketCache packetCache = ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getChunkPacketCache();
+            this.queuedPackets.addLast(new QueuedPacket(packetCache.requestPacket(chunk, this.usesChunkCache()), null, true));
+            this.flushQueuedPackets(false);
         }
 
         private void sendUnloadChunk(final int chunkX, final int chunkZ) {
-            if (!this.sentChunks.remove(CoordinateUtils.getChunkKey(chunkX, chunkZ))) {
+            final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
+            if (!this.sentChunks.remove(chunkKey)) {
                 return;
             }
+            this.pendingLight.remove(chunkKey);
             this.sendUnloadChunkRaw(chunkX, chunkZ);
         }
 
+        void queueLightUpdate(final int chunkX, final int chunkZ, final BitSet skyChanged, final BitSet blockChanged) {
+            final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
+            // chunks which are not sent yet will have their current light in the chunk packet
+            if (!this.isSent(chunkKey)) {
+                return;
+            }
+
+            ++this.queuedLightUpdates;
+            PendingLight pending = this.pendingLight.get(chunkKey);
+            if (pending == null) {
+                this.pendingLight.put(chunkKey, pending = new PendingLight());
+            }
+            pending.add(skyChanged, blockChanged);
+        }
+
+        private ClientboundLightUpdatePacket getLightPacket(final long chunkKey, final PendingLight pending, final List<LightPacket> shared) {
+            for (final LightPacket lightPacket : shared) {
+                if (Objects.equals(lightPacket.skyChanged(), pending.skyChanged) && Objects.equals(lightPacket.blockChanged(), pending.blockChanged)) {
+                    return lightPacket.packet();
+                }
+            }
+
+            final ClientboundLightUpdatePacket ret = new ClientboundLightUpdatePacket(
+                new ChunkPos(CoordinateUtils.getChunkX(chunkKey), CoordinateUtils.getChunkZ(chunkKey)),
+                this.world.getChunkSource().getLightEngine(), pending.skyChanged, pending.blockChanged
+            );
+            shared.add(new LightPacket(pending.skyChanged, pending.blockChanged, ret));
+
+            return ret;
+        }
+
+        void flushLightUpdate(final long chunkKey, final List<LightPacket> shared) {
+            final PendingLight pending = this.pendingLight.remove(chunkKey);
+            if (pending == null) {
+                return;
+            }
+
+            ++this.sentLightPackets;
+            // only queued behind chunk packets which are still building, which do not include this already sent chunk
+            this.sendPacket(this.getLightPacket(chunkKey, pending, shared));
+        }
+
+        void flushLightUpdates(final Long2ObjectOpenHashMap<List<LightPacket>> shared) {
+            if (this.pendingLight.isEmpty()) {
+                return;
+            }
+
+            final List<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>(this.pendingLight.size());
+            for (final Iterator<Long2ObjectMap.Entry<PendingLight>> iterator = this.pendingLight.long2ObjectEntrySet().fastIterator(); iterator.hasNext();) {
+                final Long2ObjectMap.Entry<PendingLight> entry = iterator.next();
+                final long chunkKey = entry.getLongKey();
+                final PendingLight pending = entry.getValue();
+
+                packets.add(this.getLightPacket(chunkKey, pending, shared.computeIfAbsent(chunkKey, (final long key) -> new ArrayList<>(1))));
+            }
+            this.pendingLight.clear();
+
+            this.sentLightPackets += (long)packets.size();
+            // send the light of all chunks with a single flush
+            for (int i = 0, len = packets.size(); i < len; i += BundlerInfo.BUNDLE_SIZE_LIMIT) {
+                final List<Packet<? super ClientGamePacketListener>> batch = packets.subList(i, Math.min(len, i + BundlerInfo.BUNDLE_SIZE_LIMIT));
+                this.sendPacket(batch.size() == 1 ? batch.get(0) : new ClientboundBundlePacket(new ArrayList<>(batch)));
+            }
+        }
+
         private void sendUnloadChunkRaw(final int chunkX, final int chunkZ) {
+            final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
+            // the client must not receive the chunk after the forget packet
+            this.removeQueuedChunkPackets(chunkKey);
+            // the client only applies a referenced chunk once told to, so an outstanding reference needs no forget
+            this.referencedChunks.remove(chunkKey);
+            if (this.pendingChunks.remove(chunkKey)) {
+                // never written, so the client does not know about the chunk
+                return;
+            }
+
             PlatformHooks.get().onChunkUnWatch(this.world, new ChunkPos(chunkX, chunkZ), this.player);
             // Note: Check PlayerChunkSender#dropChunk for other logic
             // Note: drop isAlive() check so that chunks properly unload client-side when the player dies
             ((ChunkSystemChunkHolder)((ChunkSystemServerLevel)this.world).moonrise$getChunkTaskScheduler().chunkHolderManager
                 .getChunkHolder(chunkX, chunkZ).vanillaChunkHolder).moonrise$removeReceivedChunk(this.player);
-            this.player.connection.send(new ClientboundForgetLevelChunkPacket(new ChunkPos(chunkX, chunkZ)));
+            this.sendPacket(new ClientboundForgetLevelChunkPacket(new ChunkPos(chunkX, chunkZ)));
         }
 
         private final SingleUserAreaMap<PlayerChunkLoaderData> broadcastMap = new SingleUserAreaMap<>(this) {
@@ -525,6 +970,49 @@ public final class RegionizedPlayerChunkLoader {
             return Math.max(tickViewDistance + 1, playerLoadViewDistance < 0 ? worldLoadViewDistance : playerLoadViewDistance);
         }
 
+        private static int getEffectiveLoadViewDistance(final int tickViewDistance, final int loadViewDistance,
+                                                        final boolean lowPriority) {
+            final int reduction = MemoryPressureGovernor.getViewDistanceReduction();
+            final int dynamicLoadViewDistance = DynamicViewDistance.reduceLoadDistance(loadViewDistance, lowPriority);
+            // cannot go below tick view + 1
+            return Math.max(tickViewDistance + 1, reduction <= 0 ? dynamicLoadViewDistance : dynamicLoadViewDistance - reduction);
+        }
+
+        // players whose distances are reduced first under load, as they are the least likely to notice
+        private boolean isLowPriority() {
+            return this.player.isSpectator() || this.movingFast || ChunkLoadingProfile.isAfk(this.player);
+        }
+
+        private void sampleMovement(final long time) {
+            if (time - this.lastMovementSample < MOVEMENT_SAMPLE_INTERVAL) {
+                return;
+            }
+
+            final double x = this.player.getX();
+            final double z = this.player.getZ();
+            if (this.lastMovementSample != Long.MIN_VALUE) {
+                final double seconds = (double)(time - this.lastMovementSample) * 1.0E-9;
+                final double dx = x - this.lastSampledX;
+                final double dz = z - this.lastSampledZ;
+                final boolean fast = Math.sqrt(dx * dx + dz * dz) / seconds >= FAST_MOVEMENT_SPEED;
+                if (fast == this.movingFast) {
+                    this.movementSamples = 0;
+                } else if (++this.movementSamples >= MOVEMENT_SAMPLE_HYSTERESIS) {
+                    this.movementSamples = 0;
+                    this.movingFast = fast;
+                }
+            }
+
+            this.lastMovementSample = time;
+            this.lastSampledX = x;
+            this.lastSampledZ = z;
+        }
+
+        private boolean isChunkQueueSaturated() {
+            return (!this.loadQueue.isEmpty() && this.getMaxChunkLoads() <= 0L)
+                || (!this.genQueue.isEmpty() && this.getMaxChunkGenerates() <= 0L);
+        }
+
         private static int getSendViewDistance(final int loadViewDistance, final int clientViewDistance,
                                                final int playerSendViewDistance, final int worldSendViewDistance) {
             return Math.min(
@@ -549,8 +1037,44 @@ public final class RegionizedPlayerChunkLoader {
             return new ClientboundSetChunkCacheCenterPacket(chunkX, chunkZ);
         }
 
-        private boolean canPlayerGenerateChunks() {
-            return !this.player.isSpectator() || this.world.getGameRules().getBoolean(GameRules.RULE_SPECTATORSGENERATECHUNKS);
+        private ChunkLoadingProfile getLoadingProfile() {
+            final ChunkLoadingProfile override = ((ChunkSystemServerPlayer)this.player).moonrise$getLoadingProfileOverride();
+            if (override != null) {
+                return override;
+            }
+
+            final ChunkLoadingProfile selected = ChunkLoadingProfile.select(this.player);
+            if (selected != ChunkLoadingProfile.AFK) {
+                return selected;
+            }
+
+            // the AFK profile sends no new chunks, so it only applies while the player stays in the chunk it was
+            // entered in once everything around the player was sent. A player without input may still be teleported
+            // or carried by a vehicle, and after a dimension change nothing was sent yet
+            final ChunkPos playerPos = this.player.chunkPosition();
+            if (this.lastProfile == ChunkLoadingProfile.AFK) {
+                return playerPos.x == this.afkChunkX && playerPos.z == this.afkChunkZ ? ChunkLoadingProfile.AFK : ChunkLoadingProfile.FULL;
+            }
+            if (!this.isAreaSent(playerPos)) {
+                return ChunkLoadingProfile.FULL;
+            }
+
+            this.afkChunkX = playerPos.x;
+            this.afkChunkZ = playerPos.z;
+            return ChunkLoadingProfile.AFK;
+        }
+
+        private boolean isAreaSent(final ChunkPos playerPos) {
+            return playerPos.x == this.lastChunkX && playerPos.z == this.lastChunkZ
+                && !this.sentChunks.isEmpty() && this.pendingChunks.isEmpty()
+                && this.sendQueue.isEmpty() && this.loadQueue.isEmpty() && this.loadingQueue.isEmpty()
+                && this.genQueue.isEmpty() && this.generatingQueue.isEmpty();
+        }
+
+        private boolean canPlayerGenerateChunks(final ChunkLoadingProfile profile) {
+            final boolean spectator = this.player.isSpectator() || profile == ChunkLoadingProfile.SPECTATOR;
+            return profile.canGenerate()
+                && (!spectator || this.world.getGameRules().getBoolean(GameRules.RULE_SPECTATORSGENERATECHUNKS));
         }
 
         private double getMaxChunkLoadRate() {
@@ -573,28 +1097,30 @@ public final class RegionizedPlayerChunkLoader {
 
         private long getMaxChunkLoads() {
             final long radiusChunks = (2L * this.lastLoadDistance + 1L) * (2L * this.lastLoadDistance + 1L);
+            // by default, only allow 1/5th of the chunks in the view distance to be concurrently active
+            final long defaultLimit = Math.max(5L, radiusChunks / 5L);
             long configLimit = (long)PlatformHooks.get().configPlayerMaxConcurrentLoads();
             if (configLimit == 0L) {
-                // by default, only allow 1/5th of the chunks in the view distance to be concurrently active
-                configLimit = Math.max(5L, radiusChunks / 5L);
+                configLimit = defaultLimit;
             } else if (configLimit < 0L) {
                 configLimit = Integer.MAX_VALUE;
             } // else: use the value configured
-            configLimit = configLimit - this.loadingQueue.size();
+            configLimit = MemoryPressureGovernor.scaleMaxLoads(configLimit, defaultLimit) - this.loadingQueue.size();
 
             return configLimit;
         }
 
         private long getMaxChunkGenerates() {
             final long radiusChunks = (2L * this.lastLoadDistance + 1L) * (2L * this.lastLoadDistance + 1L);
+            // by default, only allow 1/5th of the chunks in the view distance to be concurrently active
+            final long defaultLimit = Math.max(5L, radiusChunks / 5L);
             long configLimit = (long)PlatformHooks.get().configPlayerMaxConcurrentGens();
             if (configLimit == 0L) {
-                // by default, only allow 1/5th of the chunks in the view distance to be concurrently active
-                configLimit = Math.max(5L, radiusChunks / 5L);
+                configLimit = defaultLimit;
             } else if (configLimit < 0L) {
                 configLimit = Integer.MAX_VALUE;
             } // else: use the value configured
-            configLimit = configLimit - this.generatingQueue.size();
+            configLimit = MemoryPressureGovernor.scaleMaxGenerates(configLimit, defaultLimit) - this.generatingQueue.size();
 
             return configLimit;
         }
@@ -608,6 +1134,9 @@ public final class RegionizedPlayerChunkLoader {
         }
 
         private boolean wantChunkTicked(final int chunkX, final int chunkZ) {
+            if (!this.tickTickets) {
+                return false;
+            }
             final int dx = this.lastChunkX - chunkX;
             final int dz = this.lastChunkZ - chunkZ;
             return Math.max(Math.abs(dx), Math.abs(dz)) <= this.lastTickDistance;
@@ -632,7 +1161,7 @@ public final class RegionizedPlayerChunkLoader {
             return true;
         }
 
-        void updateQueues(final long time) {
+        void updateQueues(final long time, final boolean fairSend) {
             TickThread.ensureTickThread(this.player, "Cannot tick player chunk loader async");
             if (this.removed) {
                 throw new IllegalStateException("Ticking removed player chunk loader");
@@ -640,12 +1169,15 @@ public final class RegionizedPlayerChunkLoader {
             // update rate limits
             final double loadRate = this.getMaxChunkLoadRate();
             final double genRate = this.getMaxChunkGenRate();
-            final double sendRate = this.getMaxChunkSendRate();
+            final double sendRate = this.sendPacer.getRate(time, this.player.connection.connection, this.getMaxChunkSendRate());
 
             this.chunkLoadTicketLimiter.tickAllocation(time, loadRate, loadRate);
             this.chunkGenerateTicketLimiter.tickAllocation(time, genRate, genRate);
             this.chunkSendLimiter.tickAllocation(time, sendRate, sendRate);
 
+            // send chunk packets which finished building since the last tick
+            this.flushQueuedPackets(false);
+
             // try to progress chunk loads
             while (!this.loadingQueue.isEmpty()) {
                 final long pendingLoadChunk = this.loadingQueue.firstLong();
@@ -810,37 +1342,102 @@ public final class RegionizedPlayerChunkLoader {
             }
 
             // try to pull sending chunks
-            final long maxSends = Math.max(0L, Math.min(MAX_RATE, Integer.MAX_VALUE)); // note: no logic to track concurrent sends
-            final int maxSendsThisTick = Math.min((int)this.chunkSendLimiter.takeAllocation(time, sendRate, maxSends), this.sendQueue.size());
-            // we do not return sends that we took from the allocation back because we want to limit the max send rate, not target it
-            for (int i = 0; i < maxSendsThisTick; ++i) {
-                final long pendingSend = this.sendQueue.firstLong();
-                final int pendingSendX = CoordinateUtils.getChunkX(pendingSend);
-                final int pendingSendZ = CoordinateUtils.getChunkZ(pendingSend);
-                final LevelChunk chunk = ((ChunkSystemLevel)this.world).moonrise$getFullChunkIfLoaded(pendingSendX, pendingSendZ);
-                if (!this.areNeighboursGenerated(pendingSendX, pendingSendZ, 1) || !TickThread.isTickThreadFor(this.world, pendingSendX, pendingSendZ)) {
-                    // nothing to do
-                    // the target chunk may not be owned by this region, but this should be resolved in the future
-                    break;
+            if (!this.lastProfile.sendsChunks()) {
+                // the send queue is kept as-is, and is sent once the profile allows sends again
+                if (fairSend) {
+                    this.prepareFairSend(time, sendRate);
                 }
-                if (!((ChunkSystemLevelChunk)chunk).moonrise$isPostProcessingDone()) {
-                    // not yet post-processed, need to do this so that tile entities can properly be sent to clients
-                    chunk.postProcessGeneration(this.world);
-                    // check if there was any recursive action
-                    if (this.removed || this.sendQueue.isEmpty() || this.sendQueue.firstLong() != pendingSend) {
+            } else if (fairSend) {
+                // the sends are handed out between the players of the world afterwards, see sendChunksFairly
+                this.prepareFairSend(time, sendRate);
+            } else {
+                final long maxSends = Math.max(0L, Math.min(MAX_RATE, Integer.MAX_VALUE)); // note: no logic to track concurrent sends
+                final int maxSendsThisTick = Math.min((int)this.chunkSendLimiter.takeAllocation(time, sendRate, maxSends), this.sendQueue.size());
+                // we do not return sends that we took from the allocation back because we want to limit the max send rate, not target it
+                for (int i = 0; i < maxSendsThisTick; ++i) {
+                    if (!this.trySendNext()) {
+                        break;
+                    }
+
+                    if (this.removed) {
+                        // sendChunk may invoke plugin logic
                         return;
-                    } // else: good to dequeue and send, fall through
+                    }
                 }
-                this.sendQueue.dequeueLong();
+            }
 
-                this.sendChunk(pendingSendX, pendingSendZ);
+            this.flushQueuedPackets(false);
+            this.flushDelayedTicketOps();
+        }
 
-                if (this.removed) {
-                    // sendChunk may invoke plugin logic
-                    return;
-                }
+        // returns false if the next chunk in the send queue could not be sent
+        private boolean trySendNext() {
+            final long pendingSend = this.sendQueue.firstLong();
+            final int pendingSendX = CoordinateUtils.getChunkX(pendingSend);
+            final int pendingSendZ = CoordinateUtils.getChunkZ(pendingSend);
+            final LevelChunk chunk = ((ChunkSystemLevel)this.world).moonrise$getFullChunkIfLoaded(pendingSendX, pendingSendZ);
+            if (!this.areNeighboursGenerated(pendingSendX, pendingSendZ, 1) || !TickThread.isTickThreadFor(this.world, pendingSendX, pendingSendZ)) {
+                // nothing to do
+                // the target chunk may not be owned by this region, but this should be resolved in the future
+                return false;
+            }
+            if (!((ChunkSystemLevelChunk)chunk).moonrise$isPostProcessingDone()) {
+                // not yet post-processed, need to do this so that tile entities can properly be sent to clients
+                chunk.postProcessGeneration(this.world);
+                // check if there was any recursive action
+                if (this.removed || this.sendQueue.isEmpty() || this.sendQueue.firstLong() != pendingSend) {
+                    return false;
+                } // else: good to dequeue and send, fall through
+            }
+            this.sendQueue.dequeueLong();
+
+            this.sendChunk(pendingSendX, pendingSendZ);
+
+            return true;
+        }
+
+        private void prepareFairSend(final long time, final double sendRate) {
+            this.fairSendTime = time;
+            this.fairSendRate = sendRate;
+            this.fairSendBlocked = false;
+            this.fairSent = 0;
+            this.fairSendAllowance = !this.lastProfile.sendsChunks() ? 0 : (int)Math.min((long)this.sendQueue.size(), this.chunkSendLimiter.previewAllocation(time, sendRate, MAX_RATE));
+            if (this.fairSendAllowance <= 0) {
+                // players without anything to send must not build up a deficit
+                this.sendDeficit = 0.0;
+            }
+        }
+
+        // returns Integer.MAX_VALUE if the player cannot send any more chunks this tick
+        private int getNextSendDistance() {
+            if (this.removed || this.fairSendBlocked || this.fairSent >= this.fairSendAllowance || this.sendQueue.isEmpty()) {
+                return Integer.MAX_VALUE;
+            }
+
+            final long next = this.sendQueue.firstLong();
+            return Math.abs(CoordinateUtils.getChunkX(next) - this.lastChunkX) + Math.abs(CoordinateUtils.getChunkZ(next) - this.lastChunkZ);
+        }
+
+        private boolean trySendFair() {
+            if (!this.trySendNext()) {
+                this.fairSendBlocked = true;
+                return false;
+            }
+
+            ++this.fairSent;
+            this.sendDeficit -= 1.0;
+            return true;
+        }
+
+        private void finishFairSend() {
+            if (this.removed) {
+                return;
             }
 
+            // unlike the unbudgeted sends, only take what was sent as the budget may have held this player back
+            this.chunkSendLimiter.takeAllocation(this.fairSendTime, this.fairSendRate, (long)this.fairSent);
+
+            this.flushQueuedPackets(false);
             this.flushDelayedTicketOps();
         }
 
@@ -854,33 +1451,43 @@ public final class RegionizedPlayerChunkLoader {
             final int chunkX = this.player.chunkPosition().x;
             final int chunkZ = this.player.chunkPosition().z;
 
-            final int tickViewDistance = getTickDistance(
+            final boolean lowPriority = this.isLowPriority();
+            final ChunkLoadingProfile profile = this.getLoadingProfile();
+            final int tickViewDistance = DynamicViewDistance.reduceTickDistance(getTickDistance(
                     playerDistances.tickViewDistance, worldDistances.tickViewDistance,
                     playerDistances.loadViewDistance, worldDistances.loadViewDistance
-            );
+            ), lowPriority);
             // load view cannot be less-than tick view + 1
-            final int loadViewDistance = getLoadViewDistance(tickViewDistance, playerDistances.loadViewDistance, worldDistances.loadViewDistance);
+            final int loadViewDistance = getEffectiveLoadViewDistance(
+                tickViewDistance, getLoadViewDistance(tickViewDistance, playerDistances.loadViewDistance, worldDistances.loadViewDistance),
+                lowPriority
+            );
             // send view cannot be greater-than load view
             final int clientViewDistance = getClientViewDistance(this.player);
             final int sendViewDistance = getSendViewDistance(loadViewDistance, clientViewDistance, playerDistances.sendViewDistance, worldDistances.sendViewDistance);
 
             // send view distances
-            this.player.connection.send(this.updateClientChunkRadius(sendViewDistance));
-            this.player.connection.send(this.updateClientSimulationDistance(tickViewDistance));
+            this.sendPacket(this.updateClientChunkRadius(sendViewDistance));
+            this.sendPacket(this.updateClientSimulationDistance(tickViewDistance));
 
             // add to distance maps
             this.broadcastMap.add(chunkX, chunkZ, sendViewDistance + 1);
             this.loadTicketCleanup.add(chunkX, chunkZ, loadViewDistance + 1);
-            this.tickMap.add(chunkX, chunkZ, tickViewDistance);
+            this.tickTickets = profile.hasTickTickets();
+            if (this.tickTickets) {
+                this.tickMap.add(chunkX, chunkZ, tickViewDistance);
+            }
+            this.lastProfile = profile;
 
             // update chunk center
-            this.player.connection.send(this.updateClientChunkCenter(chunkX, chunkZ));
+            this.sendPacket(this.updateClientChunkCenter(chunkX, chunkZ));
 
             // reset limiters, they will start at a zero allocation
             final long time = System.nanoTime();
             this.chunkLoadTicketLimiter.reset(time);
             this.chunkGenerateTicketLimiter.reset(time);
             this.chunkSendLimiter.reset(time);
+            this.sendPacer.reset(time);
 
             // now we can update
             this.update();
@@ -907,18 +1514,24 @@ public final class RegionizedPlayerChunkLoader {
             final ViewDistances playerDistances = ((ChunkSystemServerPlayer)this.player).moonrise$getViewDistanceHolder().getViewDistances();
             final ViewDistances worldDistances = ((ChunkSystemServerLevel)this.world).moonrise$getViewDistanceHolder().getViewDistances();
 
-            final int tickViewDistance = getTickDistance(
+            final boolean lowPriority = this.isLowPriority();
+            final ChunkLoadingProfile profile = this.getLoadingProfile();
+            final int tickViewDistance = DynamicViewDistance.reduceTickDistance(getTickDistance(
                     playerDistances.tickViewDistance, worldDistances.tickViewDistance,
                     playerDistances.loadViewDistance, worldDistances.loadViewDistance
-            );
+            ), lowPriority);
             // load view cannot be less-than tick view + 1
-            final int loadViewDistance = getLoadViewDistance(tickViewDistance, playerDistances.loadViewDistance, worldDistances.loadViewDistance);
+            final int loadViewDistance = getEffectiveLoadViewDistance(
+                tickViewDistance, getLoadViewDistance(tickViewDistance, playerDistances.loadViewDistance, worldDistances.loadViewDistance),
+                lowPriority
+            );
             // send view cannot be greater-than load view
             final int clientViewDistance = getClientViewDistance(this.player);
             final int sendViewDistance = getSendViewDistance(loadViewDistance, clientViewDistance, playerDistances.sendViewDistance, worldDistances.sendViewDistance);
 
             final ChunkPos playerPos = this.player.chunkPosition();
-            final boolean canGenerateChunks = this.canPlayerGenerateChunks();
+            final boolean canGenerateChunks = this.canPlayerGenerateChunks(profile);
+            final boolean tickTickets = profile.hasTickTickets();
             final int currentChunkX = playerPos.x;
             final int currentChunkZ = playerPos.z;
 
@@ -937,7 +1550,11 @@ public final class RegionizedPlayerChunkLoader {
 
                     // can we still generate chunks?
                     && this.canGenerateChunks == canGenerateChunks
+
+                    // do we still add tick tickets?
+                    && this.tickTickets == tickTickets
             ) {
+                this.lastProfile = profile;
                 // nothing we care about changed, so we're not re-calculating
                 return;
             }
@@ -945,7 +1562,12 @@ public final class RegionizedPlayerChunkLoader {
             // update distance maps
             this.broadcastMap.update(currentChunkX, currentChunkZ, sendViewDistance + 1);
             this.loadTicketCleanup.update(currentChunkX, currentChunkZ, loadViewDistance + 1);
-            this.tickMap.update(currentChunkX, currentChunkZ, tickViewDistance);
+            if (!tickTickets) {
+                // downgrades the chunks at the tick stage
+                this.tickMap.remove();
+            } else if (!this.tickMap.update(currentChunkX, currentChunkZ, tickViewDistance)) {
+                this.tickMap.add(currentChunkX, currentChunkZ, tickViewDistance);
+            }
             if (sendViewDistance > loadViewDistance || tickViewDistance > loadViewDistance) {
                 throw new IllegalStateException();
             }
@@ -953,10 +1575,10 @@ public final class RegionizedPlayerChunkLoader {
             // update VDs for client
             // this should be after the distance map updates, as they will send unload packets
             if (this.lastSentChunkRadius != sendViewDistance) {
-                this.player.connection.send(this.updateClientChunkRadius(sendViewDistance));
+                this.sendPacket(this.updateClientChunkRadius(sendViewDistance));
             }
             if (this.lastSentSimulationDistance != tickViewDistance) {
-                this.player.connection.send(this.updateClientSimulationDistance(tickViewDistance));
+                this.sendPacket(this.updateClientSimulationDistance(tickViewDistance));
             }
 
             this.sendQueue.clear();
@@ -972,6 +1594,8 @@ public final class RegionizedPlayerChunkLoader {
             this.lastLoadDistance = loadViewDistance;
             this.lastTickDistance = tickViewDistance;
             this.canGenerateChunks = canGenerateChunks;
+            this.tickTickets = tickTickets;
+            this.lastProfile = profile;
 
             // +1 since we need to load chunks +1 around the load view distance...
             final long[] toIterate = ParallelSearchRadiusIteration.getSearchIteration(loadViewDistance + 1);
@@ -1025,7 +1649,7 @@ public final class RegionizedPlayerChunkLoader {
                         if (sendChunk && !sentChunk) {
                             this.sendQueue.enqueue(chunk);
                         }
-                        if (squareDistance <= tickViewDistance) {
+                        if (tickTickets && squareDistance <= tickViewDistance) {
                             this.tickingQueue.enqueue(chunk);
                         }
                         break;
@@ -1045,7 +1669,7 @@ public final class RegionizedPlayerChunkLoader {
             // update the chunk center
             // this must be done last so that the client does not ignore any of our unload chunk packets above
             if (this.lastSentChunkCenterX != currentChunkX || this.lastSentChunkCenterZ != currentChunkZ) {
-                this.player.connection.send(this.updateClientChunkCenter(currentChunkX, currentChunkZ));
+                this.sendPacket(this.updateClientChunkCenter(currentChunkX, currentChunkZ));
             }
 
             this.flushDelayedTicketOps();
@@ -1057,8 +1681,11 @@ public final class RegionizedPlayerChunkLoader {
                 throw new IllegalStateException("Removing removed player chunk loader");
             }
             this.removed = true;
+            this.pendingLight.clear();
             // sends the chunk unload packets
             this.broadcastMap.remove();
+            // the client must not be left with chunks that it will never receive the unload packet for
+            this.flushQueuedPackets(true);
             // cleans up loading/generating tickets
             this.loadTicketCleanup.remove();
             // cleans up ticking tickets
@@ -1081,5 +1708,31 @@ public final class RegionizedPlayerChunkLoader {
         public LongOpenHashSet getSentChunksRaw() {
             return this.sentChunks;
         }
+
+        public JsonObject getDebugJson() {
+            final JsonObject ret = new JsonObject();
+
+            ret.addProperty("sent_chunks", this.sentChunks.size() - this.pendingChunks.size());
+            ret.addProperty("pending_chunks", this.pendingChunks.size());
+            ret.addProperty("referenced_chunks", this.referencedChunks.size());
+            ret.addProperty("queued_packets", this.queuedPackets.size());
+            ret.addProperty("send_queue", this.sendQueue.size());
+            ret.addProperty("pending_light_chunks", this.pendingLight.size());
+            ret.addProperty("queued_light_updates", this.queuedLightUpdates);
+            ret.addProperty("sent_light_packets", this.sentLightPackets);
+            ret.add("send_rate", this.sendPacer.getDebugJson());
+            if (this.chunkCacheSession != null) {
+                ret.add("chunk_cache", this.chunkCacheSession.getDebugJson());
+            }
+            ret.addProperty("send_deficit", this.sendDeficit);
+            ret.addProperty("low_priority", this.isLowPriority());
+            ret.addProperty("loading_profile", this.lastProfile.name());
+            ret.addProperty("moving_fast", this.movingFast);
+            ret.addProperty("tick_distance", this.lastTickDistance);
+            ret.addProperty("load_distance", this.lastLoadDistance);
+            ret.addProperty("send_distance", this.lastSendDistance);
+
+            return ret;
+        }
     }
 }
@@ -0,0 +1,101 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.queue;
+
+import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
+
+/**
+ * Tracks chunks which are reloaded shortly after being unloaded, so that the unload of such chunks may be delayed
+ * by a cooldown which grows with the number of times the chunk has thrashed.
+ */
+public final class ChunkUnloadThrashTracker {
+
+    // a reload within this many ticks of the unload counts as a thrash
+    public static final long THRASH_WINDOW = 30L * 20L;
+    private static final int MAX_TRACKED = 16384;
+    private static final int MAX_COOLDOWN_SHIFT = 6;
+    private static final long MAX_COOLDOWN = 5L * 60L * 20L;
+
+    private final Long2ReferenceLinkedOpenHashMap<Entry> entries = new Long2ReferenceLinkedOpenHashMap<>();
+    private long totalThrashes;
+
+    private static final class Entry {
+        private long lastUnload;
+        private int thrashes;
+    }
+
+    public synchronized void onUnload(final long chunkKey, final long currentTick) {
+        Entry entry = this.entries.getAndMoveToLast(chunkKey);
+        if (entry == null) {
+            if (this.entries.size() >= MAX_TRACKED) {
+                this.entries.removeFirst();
+            }
+            this.entries.putAndMoveToLast(chunkKey, entry = new Entry());
+        }
+
+        entry.lastUnload = currentTick;
+    }
+
+    public synchronized void onLoad(final long chunkKey, final long currentTick) {
+        final Entry entry = this.entries.get(chunkKey);
+        if (entry == null) {
+            return;
+        }
+
+        if (currentTick - entry.lastUnload <= THRASH_WINDOW) {
+            ++entry.thrashes;
+            ++this.totalThrashes;
+        } else if (--entry.thrashes <= 0) {
+            // the chunk has settled down
+            this.entries.remove(chunkKey);
+        }
+    }
+
+    public synchronized int getThrashes(final long chunkKey) {
+        final Entry entry = this.entries.get(chunkKey);
+        return entry == null ? 0 : entry.thrashes;
+    }
+
+    /**
+     * Returns the number of ticks to delay the unload of the specified chunk by, or {@code 0} if the chunk has not
+     * thrashed. The cooldown doubles with each thrash, starting at {@code baseCooldown}.
+     */
+    public long getCooldown(final long chunkKey, final long baseCooldown) {
+        final int thrashes = this.getThrashes(chunkKey);
+        if (thrashes <= 0) {
+            return 0L;
+        }
+
+        return Math.min(MAX_COOLDOWN, baseCooldown << Math.min(MAX_COOLDOWN_SHIFT, thrashes - 1));
+    }
+
+    public synchronized JsonObject toDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("total_thrashes", this.totalThrashes);
+        ret.addProperty("tracked", this.entries.size());
+
+        final JsonArray thrashing = new JsonArray();
+        ret.add("thrashing", thrashing);
+
+        for (final Long2ReferenceMap.Entry<Entry> entry : this.entries.long2ReferenceEntrySet()) {
+            final int thrashes = entry.getValue().thrashes;
+            if (thrashes <= 0) {
+                continue;
+            }
+
+            final long coordinate = entry.getLongKey();
+
+            final JsonObject coordinateJson = new JsonObject();
+            thrashing.add(coordinateJson);
+
+            coordinateJson.addProperty("chunkX", Integer.valueOf(CoordinateUtils.getChunkX(coordinate)));
+            coordinateJson.addProperty("chunkZ", Integer.valueOf(CoordinateUtils.getChunkZ(coordinate)));
+            coordinateJson.addProperty("thrashes", Integer.valueOf(thrashes));
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,126 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.queue;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel mapping values to the tick they are due at. Advancing the wheel only touches the
+ * entries which are due (plus one cascade per slot boundary crossed), rather than every entry in the wheel.
+ * <p>
+ * Entries cannot be removed, so users must tolerate values being returned which are no longer relevant.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // entries are stored as (tick, value) pairs
+    private final LongArrayList[][] wheels = new LongArrayList[LEVELS][];
+    private final LongArrayList overflow = new LongArrayList();
+    // all entries due at or before this tick have been returned
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(final long currentTick) {
+        this.currentTick = currentTick;
+        for (int i = 0; i < LEVELS; ++i) {
+            this.wheels[i] = new LongArrayList[SLOTS];
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void add(final long tick, final long value) {
+        // an entry which is already due is returned by the next advance
+        this.insert(Math.max(tick, this.currentTick + 1L), value);
+        ++this.size;
+    }
+
+    private void insert(final long tick, final long value) {
+        LongArrayList slot = null;
+        for (int level = 0; level < LEVELS; ++level) {
+            final int shift = SLOT_BITS * (level + 1);
+            if ((tick >>> shift) == (this.currentTick >>> shift)) {
+                final LongArrayList[] wheel = this.wheels[level];
+                final int index = (int)(tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+                if ((slot = wheel[index]) == null) {
+                    slot = wheel[index] = new LongArrayList(4);
+                }
+                break;
+            }
+        }
+
+        if (slot == null) {
+            slot = this.overflow;
+        }
+
+        slot.add(tick);
+        slot.add(value);
+    }
+
+    private void reinsert(final LongArrayList entries) {
+        final long[] raw = entries.elements();
+        for (int i = 0, len = entries.size(); i < len; i += 2) {
+            this.insert(raw[i], raw[i + 1]);
+        }
+    }
+
+    /**
+     * Advances the wheel to the specified tick, passing every value due at or before the tick to the consumer.
+     */
+    public void advance(final long toTick, final LongConsumer into) {
+        while (this.currentTick < toTick) {
+            if (this.size == 0) {
+                this.currentTick = toTick;
+                return;
+            }
+
+            final long tick = ++this.currentTick;
+
+            // move the entries of higher levels down once we reach their slot
+            if ((tick & ((1L << (SLOT_BITS * LEVELS)) - 1L)) == 0L && !this.overflow.isEmpty()) {
+                final LongArrayList entries = new LongArrayList(this.overflow);
+                this.overflow.clear();
+                this.reinsert(entries);
+            }
+            for (int level = LEVELS - 1; level >= 1; --level) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1L)) != 0L) {
+                    continue;
+                }
+                final LongArrayList[] wheel = this.wheels[level];
+                final int index = (int)(tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+                final LongArrayList entries = wheel[index];
+                if (entries != null) {
+                    wheel[index] = null;
+                    this.reinsert(entries);
+                }
+            }
+
+            final LongArrayList[] wheel = this.wheels[0];
+            final int index = (int)tick & SLOT_MASK;
+            final LongArrayList due = wheel[index];
+            if (due == null) {
+                continue;
+            }
+            wheel[index] = null;
+
+            final long[] raw = due.elements();
+            for (int i = 0, len = due.size(); i < len; i += 2) {
+                into.accept(raw[i + 1]);
+            }
+            this.size -= due.size() >>> 1;
+        }
+    }
+}
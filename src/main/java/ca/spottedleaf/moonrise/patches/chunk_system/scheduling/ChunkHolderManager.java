@@ -13,6 +13,8 @@ import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel
 import ca.spottedleaf.moonrise.patches.chunk_system.level.entity.ChunkEntitySlices;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.poi.PoiChunk;
 import ca.spottedleaf.moonrise.patches.chunk_system.queue.ChunkUnloadQueue;
+import ca.spottedleaf.moonrise.patches.chunk_system.queue.ChunkUnloadThrashTracker;
+import ca.spottedleaf.moonrise.patches.chunk_system.queue.TimingWheel;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkLoadTask;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkProgressionTask;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.GenericDataLoadTask;
@@ -22,12 +24,11 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import it.unimi.dsi.fastutil.longs.Long2ByteLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ByteMap;
-import it.unimi.dsi.fastutil.longs.Long2IntMap;
-import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectRBTreeSet;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.server.level.ChunkHolder;
@@ -67,14 +68,22 @@ public final class ChunkHolderManager {
     public static final int MAX_TICKET_LEVEL = ChunkLevel.MAX_LEVEL; // inclusive
 
     public static final TicketType<Unit> UNLOAD_COOLDOWN = TicketType.create("unload_cooldown", (u1, u2) -> 0, 5 * 20);
+    // the timeout is set per ticket, see getAdaptiveUnloadCooldown
+    public static final TicketType<Unit> ADAPTIVE_UNLOAD_COOLDOWN = TicketType.create("adaptive_unload_cooldown", (u1, u2) -> 0, 1);
 
     private static final long NO_TIMEOUT_MARKER = Long.MIN_VALUE;
     private static final long PROBE_MARKER = Long.MIN_VALUE + 1;
-    public final ReentrantAreaLock ticketLockArea;
+    // bounded so that a world entering idle mode with a large unload queue does not stall the tick
+    private static final int IDLE_UNLOAD_COUNT = 1000;
+    public final MonitoredAreaLock ticketLockArea;
 
     private final ConcurrentLong2ReferenceChainedHashTable<SortedArraySet<Ticket<?>>> tickets = new ConcurrentLong2ReferenceChainedHashTable<>();
-    private final ConcurrentLong2ReferenceChainedHashTable<Long2IntOpenHashMap> sectionToChunkToExpireCount = new ConcurrentLong2ReferenceChainedHashTable<>();
+    // per ticket lock section, the chunks which have tickets expiring at a given tick. guarded by the ticket lock
+    private final ConcurrentLong2ReferenceChainedHashTable<TimingWheel> sectionToExpiringChunks = new ConcurrentLong2ReferenceChainedHashTable<>();
+    // the sections which have tickets expiring at a given tick, guarded by synchronizing on the wheel
+    private final TimingWheel expiringSections = new TimingWheel(0L);
     final ChunkUnloadQueue unloadQueue;
+    private final ChunkUnloadThrashTracker thrashTracker = new ChunkUnloadThrashTracker();
 
     private final ConcurrentLong2ReferenceChainedHashTable<NewChunkHolder> chunkHolders = ConcurrentLong2ReferenceChainedHashTable.createWithCapacity(16384, 0.25f);
     private final ServerLevel world;
@@ -106,7 +115,7 @@ public final class ChunkHolderManager {
     public ChunkHolderManager(final ServerLevel world, final ChunkTaskScheduler taskScheduler) {
         this.world = world;
         this.taskScheduler = taskScheduler;
-        this.ticketLockArea = new ReentrantAreaLock(taskScheduler.getChunkSystemLockShift());
+        this.ticketLockArea = new MonitoredAreaLock("ticket", taskScheduler.getChunkSystemLockShift());
         this.unloadQueue = new ChunkUnloadQueue(((ChunkSystemServerLevel)world).moonrise$getRegionChunkShift());
     }
 
@@ -225,26 +234,66 @@ public final class ChunkHolderManager {
         if (!this.autoSaveQueue.contains(holder)) {
             holder.lastAutoSave = this.currentTick;
             this.autoSaveQueue.add(holder);
+            this.onUnloadOrSaveQueued();
         }
     }
 
+    // the estimated time taken per unit of NewChunkHolder#getAutoSaveCost, learned from previous autosaves
+    private double autoSaveNanosPerCost = AUTOSAVE_INITIAL_NANOS_PER_COST;
+    // number of holders which may be saved ahead of their deadline, so that saves are spread over the interval
+    private double autoSaveSpreadCredit;
+
+    private static final double AUTOSAVE_INITIAL_NANOS_PER_COST = 5_000.0;
+    private static final double AUTOSAVE_COST_SMOOTHING = 0.05;
+
     public void autoSave() {
+        if (this.idle) {
+            // nothing is loading chunks in an idle world, so unloads and the periodic full save cover it
+            return;
+        }
+
         final List<NewChunkHolder> reschedule = new ArrayList<>();
         final long currentTick = this.currentTick;
-        final long maxSaveTime = currentTick - Math.max(1L, PlatformHooks.get().configAutoSaveInterval(this.world));
+        final long interval = Math.max(1L, PlatformHooks.get().configAutoSaveInterval(this.world));
+        final long maxSaveTime = currentTick - interval;
         final int maxToSave = PlatformHooks.get().configMaxAutoSavePerTick(this.world);
+        final long maxTime = PlatformHooks.get().configMaxAutoSaveTimePerTick(this.world);
+
+        // save every holder once per interval at an even rate, rather than in bursts when many holders were
+        // added to the queue at the same time
+        this.autoSaveSpreadCredit = Math.min(
+            (double)this.autoSaveQueue.size(),
+            this.autoSaveSpreadCredit + (double)this.autoSaveQueue.size() / (double)interval
+        );
+
+        final long start = System.nanoTime();
+        long elapsed = 0L;
         for (int autoSaved = 0; autoSaved < maxToSave && !this.autoSaveQueue.isEmpty();) {
             final NewChunkHolder holder = this.autoSaveQueue.first();
 
-            if (holder.lastAutoSave > maxSaveTime) {
+            if (holder.lastAutoSave > maxSaveTime && this.autoSaveSpreadCredit < 1.0) {
+                break;
+            }
+
+            final int cost = holder.getAutoSaveCost();
+            // always allow one save per tick, so that an underestimated budget cannot stall autosave entirely
+            if (maxTime > 0L && autoSaved != 0 && elapsed + (long)(cost * this.autoSaveNanosPerCost) > maxTime) {
                 break;
             }
 
             this.autoSaveQueue.remove(holder);
+            this.autoSaveSpreadCredit = Math.max(0.0, this.autoSaveSpreadCredit - 1.0);
 
             holder.lastAutoSave = currentTick;
+            final long saveStart = System.nanoTime();
             if (holder.save(false) != null) {
                 ++autoSaved;
+                final long saveEnd = System.nanoTime();
+                final double nanosPerCost = (double)(saveEnd - saveStart) / (double)cost;
+                this.autoSaveNanosPerCost += (nanosPerCost - this.autoSaveNanosPerCost) * AUTOSAVE_COST_SMOOTHING;
+                elapsed = saveEnd - start;
+            } else {
+                elapsed = System.nanoTime() - start;
             }
 
             if (holder.getChunkStatus().isOrAfter(FullChunkStatus.FULL)) {
@@ -260,6 +309,9 @@ public final class ChunkHolderManager {
     }
 
     public void saveAllChunks(final boolean flush, final boolean shutdown, final boolean logProgress) {
+        if (!flush) {
+            this.onUnloadOrSaveQueued();
+        }
         final List<NewChunkHolder> holders = this.getChunkHolders();
 
         if (logProgress) {
@@ -487,37 +539,23 @@ public final class ChunkHolderManager {
         return this.addTicketAtLevel(type, CoordinateUtils.getChunkKey(chunkX, chunkZ), level, identifier);
     }
 
-    private void addExpireCount(final int chunkX, final int chunkZ) {
-        final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
-
-        final int sectionShift = ((ChunkSystemServerLevel)this.world).moonrise$getRegionChunkShift();
-        final long sectionKey = CoordinateUtils.getChunkKey(
-            chunkX >> sectionShift,
-            chunkZ >> sectionShift
-        );
-
-        this.sectionToChunkToExpireCount.computeIfAbsent(sectionKey, (final long keyInMap) -> {
-            return new Long2IntOpenHashMap();
-        }).addTo(chunkKey, 1);
-    }
-
-    private void removeExpireCount(final int chunkX, final int chunkZ) {
-        final long chunkKey = CoordinateUtils.getChunkKey(chunkX, chunkZ);
-
+    // must hold the ticket lock for the chunk
+    private void scheduleExpiry(final int chunkX, final int chunkZ, final long expireTick) {
         final int sectionShift = ((ChunkSystemServerLevel)this.world).moonrise$getRegionChunkShift();
         final long sectionKey = CoordinateUtils.getChunkKey(
             chunkX >> sectionShift,
             chunkZ >> sectionShift
         );
 
-        final Long2IntOpenHashMap removeCounts = this.sectionToChunkToExpireCount.get(sectionKey);
-        final int prevCount = removeCounts.addTo(chunkKey, -1);
+        TimingWheel chunks = this.sectionToExpiringChunks.get(sectionKey);
+        if (chunks == null) {
+            chunks = new TimingWheel(this.currentTick);
+            this.sectionToExpiringChunks.put(sectionKey, chunks);
+        }
+        chunks.add(expireTick, CoordinateUtils.getChunkKey(chunkX, chunkZ));
 
-        if (prevCount == 1) {
-            removeCounts.remove(chunkKey);
-            if (removeCounts.isEmpty()) {
-                this.sectionToChunkToExpireCount.remove(sectionKey);
-            }
+        synchronized (this.expiringSections) {
+            this.expiringSections.add(expireTick, sectionKey);
         }
     }
 
@@ -528,7 +566,11 @@ public final class ChunkHolderManager {
     }
 
     <T> boolean addTicketAtLevel(final TicketType<T> type, final long chunk, final int level, final T identifier, final boolean lock) {
-        final long removeDelay = type.timeout <= 0 ? NO_TIMEOUT_MARKER : type.timeout;
+        return this.addTicketAtLevel(type, chunk, level, identifier, type.timeout <= 0 ? NO_TIMEOUT_MARKER : type.timeout, lock);
+    }
+
+    private <T> boolean addTicketAtLevel(final TicketType<T> type, final long chunk, final int level, final T identifier,
+                                         final long removeDelay, final boolean lock) {
         if (level > MAX_TICKET_LEVEL) {
             return false;
         }
@@ -536,7 +578,8 @@ public final class ChunkHolderManager {
         final int chunkX = CoordinateUtils.getChunkX(chunk);
         final int chunkZ = CoordinateUtils.getChunkZ(chunk);
         final Ticket<T> ticket = new Ticket<>(type, level, identifier);
-        ((ChunkSystemTicket<T>)(Object)ticket).moonrise$setRemoveDelay(removeDelay);
+        final long expireTick = removeDelay == NO_TIMEOUT_MARKER ? NO_TIMEOUT_MARKER : this.currentTick + removeDelay;
+        ((ChunkSystemTicket<T>)(Object)ticket).moonrise$setExpireTick(expireTick);
 
         final ReentrantAreaLock.Node ticketLock = lock ? this.ticketLockArea.lock(chunkX, chunkZ) : null;
         try {
@@ -548,20 +591,9 @@ public final class ChunkHolderManager {
             final Ticket<T> current = (Ticket<T>)((ChunkSystemSortedArraySet<Ticket<?>>)ticketsAtChunk).moonrise$replace(ticket);
             final int levelAfter = getTicketLevelAt(ticketsAtChunk);
 
-            if (current != ticket) {
-                final long oldRemoveDelay = ((ChunkSystemTicket<T>)(Object)current).moonrise$getRemoveDelay();
-                if (removeDelay != oldRemoveDelay) {
-                    if (oldRemoveDelay != NO_TIMEOUT_MARKER && removeDelay == NO_TIMEOUT_MARKER) {
-                        this.removeExpireCount(chunkX, chunkZ);
-                    } else if (oldRemoveDelay == NO_TIMEOUT_MARKER) {
-                        // since old != new, we have that NO_TIMEOUT_MARKER != new
-                        this.addExpireCount(chunkX, chunkZ);
-                    }
-                }
-            } else {
-                if (removeDelay != NO_TIMEOUT_MARKER) {
-                    this.addExpireCount(chunkX, chunkZ);
-                }
+            // note: a replaced ticket may still be scheduled to expire, but expiry only removes tickets which are due
+            if (expireTick != NO_TIMEOUT_MARKER) {
+                this.scheduleExpiry(chunkX, chunkZ, expireTick);
             }
 
             if (levelBefore != levelAfter) {
@@ -615,19 +647,15 @@ public final class ChunkHolderManager {
             // we should not change the ticket levels while the target region may be ticking
             if (oldLevel != newLevel) {
                 final Ticket<ChunkPos> unknownTicket = new Ticket<>(TicketType.UNKNOWN, level, new ChunkPos(chunk));
-                ((ChunkSystemTicket<ChunkPos>)(Object)unknownTicket).moonrise$setRemoveDelay(Math.max(1, TicketType.UNKNOWN.timeout));
+                final long expireTick = this.currentTick + Math.max(1, TicketType.UNKNOWN.timeout);
+                ((ChunkSystemTicket<ChunkPos>)(Object)unknownTicket).moonrise$setExpireTick(expireTick);
                 if (ticketsAtChunk.add(unknownTicket)) {
-                    this.addExpireCount(chunkX, chunkZ);
+                    this.scheduleExpiry(chunkX, chunkZ, expireTick);
                 } else {
                     throw new IllegalStateException("Should have been able to add " + unknownTicket + " to " + ticketsAtChunk);
                 }
             }
 
-            final long removeDelay = ((ChunkSystemTicket<T>)(Object)ticket).moonrise$getRemoveDelay();
-            if (removeDelay != NO_TIMEOUT_MARKER) {
-                this.removeExpireCount(chunkX, chunkZ);
-            }
-
             return true;
         } finally {
             if (ticketLock != null) {
@@ -705,25 +733,26 @@ public final class ChunkHolderManager {
     }
 
     public void tick() {
-        ++this.currentTick;
+        final long currentTick = ++this.currentTick;
 
         final int sectionShift = ((ChunkSystemServerLevel)this.world).moonrise$getRegionChunkShift();
 
         final Predicate<Ticket<?>> expireNow = (final Ticket<?> ticket) -> {
-            long removeDelay = ((ChunkSystemTicket<?>)(Object)ticket).moonrise$getRemoveDelay();
-            if (removeDelay == NO_TIMEOUT_MARKER) {
-                return false;
-            }
-            --removeDelay;
-            ((ChunkSystemTicket<?>)(Object)ticket).moonrise$setRemoveDelay(removeDelay);
-            return removeDelay <= 0L;
+            final long expireTick = ((ChunkSystemTicket<?>)(Object)ticket).moonrise$getExpireTick();
+            return expireTick != NO_TIMEOUT_MARKER && expireTick <= currentTick;
         };
 
-        for (final PrimitiveIterator.OfLong iterator = this.sectionToChunkToExpireCount.keyIterator(); iterator.hasNext();) {
+        final LongOpenHashSet sections = new LongOpenHashSet();
+        synchronized (this.expiringSections) {
+            this.expiringSections.advance(currentTick, sections::add);
+        }
+
+        final LongOpenHashSet chunks = new LongOpenHashSet();
+        for (final LongIterator iterator = sections.iterator(); iterator.hasNext();) {
             final long sectionKey = iterator.nextLong();
 
-            if (!this.sectionToChunkToExpireCount.containsKey(sectionKey)) {
-                // removed concurrently
+            if (!this.sectionToExpiringChunks.containsKey(sectionKey)) {
+                // every ticket in the section was already processed
                 continue;
             }
 
@@ -733,24 +762,31 @@ public final class ChunkHolderManager {
             );
 
             try {
-                final Long2IntOpenHashMap chunkToExpireCount = this.sectionToChunkToExpireCount.get(sectionKey);
-                if (chunkToExpireCount == null) {
+                final TimingWheel expiringChunks = this.sectionToExpiringChunks.get(sectionKey);
+                if (expiringChunks == null) {
                     // lost to some race
                     continue;
                 }
 
-                for (final Iterator<Long2IntMap.Entry> iterator1 = chunkToExpireCount.long2IntEntrySet().fastIterator(); iterator1.hasNext();) {
-                    final Long2IntMap.Entry entry = iterator1.next();
+                chunks.clear();
+                expiringChunks.advance(currentTick, chunks::add);
+                if (expiringChunks.isEmpty()) {
+                    this.sectionToExpiringChunks.remove(sectionKey);
+                }
 
-                    final long chunkKey = entry.getLongKey();
-                    final int expireCount = entry.getIntValue();
+                for (final LongIterator iterator1 = chunks.iterator(); iterator1.hasNext();) {
+                    final long chunkKey = iterator1.nextLong();
 
                     final SortedArraySet<Ticket<?>> tickets = this.tickets.get(chunkKey);
-                    final int levelBefore = getTicketLevelAt(tickets);
+                    if (tickets == null) {
+                        // the tickets were removed before they expired
+                        continue;
+                    }
 
-                    final int sizeBefore = tickets.size();
-                    tickets.removeIf(expireNow);
-                    final int sizeAfter = tickets.size();
+                    final int levelBefore = getTicketLevelAt(tickets);
+                    if (!tickets.removeIf(expireNow)) {
+                        continue;
+                    }
                     final int levelAfter = getTicketLevelAt(tickets);
 
                     if (tickets.isEmpty()) {
@@ -759,22 +795,6 @@ public final class ChunkHolderManager {
                     if (levelBefore != levelAfter) {
                         this.updateTicketLevel(chunkKey, levelAfter);
                     }
-
-                    final int newExpireCount = expireCount - (sizeBefore - sizeAfter);
-
-                    if (newExpireCount == expireCount) {
-                        continue;
-                    }
-
-                    if (newExpireCount != 0) {
-                        entry.setValue(newExpireCount);
-                    } else {
-                        iterator1.remove();
-                    }
-                }
-
-                if (chunkToExpireCount.isEmpty()) {
-                    this.sectionToChunkToExpireCount.remove(sectionKey);
                 }
             } finally {
                 this.ticketLockArea.unlock(ticketLock);
@@ -782,6 +802,77 @@ public final class ChunkHolderManager {
         }
 
         this.processTicketUpdates();
+
+        this.updateIdleState();
+
+        // the world's worker budget follows whichever executors currently have work
+        this.taskScheduler.updateExecutorShares();
+    }
+
+    // tick at which the world was last seen without players, or Long.MIN_VALUE if it has players
+    private long emptySince = Long.MIN_VALUE;
+    private boolean idle;
+    // written by any thread queueing unload or save work
+    private volatile boolean idleFlushed;
+
+    public boolean isIdle() {
+        return this.idle;
+    }
+
+    private void updateIdleState() {
+        if (!IdlePowerMode.isEnabled() || !this.world.players().isEmpty()) {
+            this.emptySince = Long.MIN_VALUE;
+            this.exitIdle();
+            return;
+        }
+
+        if (this.emptySince == Long.MIN_VALUE) {
+            this.emptySince = this.currentTick;
+        }
+
+        if (!this.idle && this.currentTick - this.emptySince >= IdlePowerMode.getDelayTicks()) {
+            this.idle = true;
+            this.idleFlushed = false;
+            LOGGER.info("World '" + WorldUtil.getWorldName(this.world) + "' has had no players for "
+                + (this.currentTick - this.emptySince) + " ticks, entering idle mode");
+            IdlePowerMode.updateWorkerPool(this.world.getServer());
+        }
+    }
+
+    // called when a player is added to the world, so that we do not wait for the next tick to leave idle mode
+    public void exitIdle() {
+        TickThread.ensureTickThread("Cannot change idle state off-main");
+        if (!this.idle) {
+            return;
+        }
+        this.idle = false;
+        this.idleFlushed = false;
+        LOGGER.info("World '" + WorldUtil.getWorldName(this.world) + "' is leaving idle mode");
+        IdlePowerMode.updateWorkerPool(this.world.getServer());
+    }
+
+    // the regionfiles must be flushed again once the new work is written
+    void onUnloadOrSaveQueued() {
+        this.idleFlushed = false;
+    }
+
+    private void flushIdle() {
+        this.idleFlushed = true;
+        this.taskScheduler.ioExecutor.createTask(() -> {
+            // the I/O executor does not order this task after the pending writes, so wait for them to complete
+            // by retrying on a later tick instead of flushing before the data is written
+            for (final MoonriseRegionFileIO.RegionFileType type : MoonriseRegionFileIO.RegionFileType.values()) {
+                if (MoonriseRegionFileIO.getControllerFor(ChunkHolderManager.this.world, type).hasTasks()) {
+                    ChunkHolderManager.this.idleFlushed = false;
+                    return;
+                }
+            }
+            try {
+                MoonriseRegionFileIO.flushRegionStorages(ChunkHolderManager.this.world);
+            } catch (final IOException ex) {
+                LOGGER.error("Failed to flush regionfile storages for idle world '" + WorldUtil.getWorldName(ChunkHolderManager.this.world) + "'", ex);
+            }
+        }, Priority.IDLE).queue();
     }
 
     public NewChunkHolder getChunkHolder(final int chunkX, final int chunkZ) {
@@ -816,6 +907,8 @@ public final class ChunkHolderManager {
     private NewChunkHolder createChunkHolder(final long position) {
         final NewChunkHolder ret = new NewChunkHolder(this.world, CoordinateUtils.getChunkX(position), CoordinateUtils.getChunkZ(position), this.taskScheduler);
 
+        this.thrashTracker.onLoad(position, this.currentTick);
+
         ChunkSystem.onChunkHolderCreate(this.world, ret.vanillaChunkHolder);
 
         return ret;
@@ -1026,6 +1119,25 @@ public final class ChunkHolderManager {
         this.autoSaveQueue.remove(holder);
         ChunkSystem.onChunkHolderDelete(this.world, holder.vanillaChunkHolder);
         this.chunkHolders.remove(CoordinateUtils.getChunkKey(holder.chunkX, holder.chunkZ));
+        this.thrashTracker.onUnload(CoordinateUtils.getChunkKey(holder.chunkX, holder.chunkZ), this.currentTick);
+    }
+
+    private long getAdaptiveUnloadCooldown(final NewChunkHolder holder) {
+        if (MemoryPressureGovernor.getLevel().ordinal() >= MemoryPressureGovernor.PressureLevel.HIGH.ordinal()) {
+            // memory is more important than avoiding the reload
+            return 0L;
+        }
+        if (this.idle) {
+            // no player is around to cause a reload
+            return 0L;
+        }
+        if (holder.unloadCooldownEnd != Long.MIN_VALUE
+            && this.currentTick - holder.unloadCooldownEnd <= ChunkUnloadThrashTracker.THRASH_WINDOW) {
+            // just served its cooldown
+            return 0L;
+        }
+
+        return this.thrashTracker.getCooldown(CoordinateUtils.getChunkKey(holder.chunkX, holder.chunkZ), (long)UNLOAD_COOLDOWN.timeout);
     }
 
     // note: never call while inside the chunk system, this will absolutely break everything
@@ -1055,13 +1167,18 @@ public final class ChunkHolderManager {
 
         if (unloadCountTentative <= 0) {
             // no work to do
+            if (this.idle && !this.idleFlushed) {
+                this.flushIdle();
+            }
             return;
         }
 
         // We do need to process updates here so that any addTicket that is synchronised before this call does not go missed.
         this.processTicketUpdates();
 
-        final int toUnloadCount = Math.max(50, (int)(unloadCountTentative * 0.05));
+        // unload faster when the heap is under pressure or when nobody is around
+        final int normalUnloadCount = MemoryPressureGovernor.scaleUnloadCount(Math.max(50, (int)(unloadCountTentative * 0.05)));
+        final int toUnloadCount = this.idle ? Math.max(IDLE_UNLOAD_COUNT, normalUnloadCount) : normalUnloadCount;
         int processedCount = 0;
 
         for (final ChunkUnloadQueue.SectionToUnload sectionRef : unloadSectionsForRegion) {
@@ -1120,6 +1237,16 @@ public final class ChunkHolderManager {
                             LOGGER.error("Chunkholder " + chunkHolder + " is not safe to unload but is inside the unload queue?");
                             continue;
                         }
+                        final long cooldown = this.getAdaptiveUnloadCooldown(chunkHolder);
+                        if (cooldown > 0L) {
+                            // this chunk keeps being reloaded shortly after unloading, so keep it around for longer
+                            chunkHolder.unloadCooldownEnd = this.currentTick + cooldown;
+                            this.addTicketAtLevel(
+                                ADAPTIVE_UNLOAD_COOLDOWN, CoordinateUtils.getChunkKey(chunkHolder.chunkX, chunkHolder.chunkZ),
+                                MAX_TICKET_LEVEL, Unit.INSTANCE, cooldown, false
+                            );
+                            continue;
+                        }
                         final NewChunkHolder.UnloadState state = chunkHolder.unloadStage1();
                         if (state == null) {
                             // can unload immediately
@@ -1378,7 +1505,9 @@ public final class ChunkHolderManager {
     public JsonObject getDebugJson() {
         final JsonObject ret = new JsonObject();
 
+        ret.addProperty("idle", this.idle);
         ret.add("unload_queue", this.unloadQueue.toDebugJson());
+        ret.add("unload_thrash", this.thrashTracker.toDebugJson());
 
         final JsonArray holders = new JsonArray();
         ret.add("chunkholders", holders);
@@ -1420,7 +1549,7 @@ public final class ChunkHolderManager {
                 ticketSerialized.addProperty("type", ticket.getType().toString());
                 ticketSerialized.addProperty("level", Integer.valueOf(ticket.getTicketLevel()));
                 ticketSerialized.addProperty("identifier", Objects.toString(ticket.key));
-                ticketSerialized.addProperty("remove_tick", Long.valueOf(((ChunkSystemTicket<?>)(Object)ticket).moonrise$getRemoveDelay()));
+                ticketSerialized.addProperty("remove_tick", Long.valueOf(((ChunkSystemTicket<?>)(Object)ticket).moonrise$getExpireTick()));
             }
         }
 
@@ -6,6 +6,7 @@ import ca.spottedleaf.concurrentutil.executor.thread.PrioritisedThreadPool;
 import ca.spottedleaf.concurrentutil.lock.ReentrantAreaLock;
 import ca.spottedleaf.concurrentutil.util.ConcurrentUtil;
 import ca.spottedleaf.concurrentutil.util.Priority;
+import ca.spottedleaf.moonrise.common.PlatformHooks;
 import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
 import ca.spottedleaf.moonrise.common.util.JsonUtil;
 import ca.spottedleaf.moonrise.common.util.MoonriseCommon;
@@ -13,13 +14,17 @@ import ca.spottedleaf.moonrise.common.util.TickThread;
 import ca.spottedleaf.moonrise.common.util.WorldUtil;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemChunkStatus;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkSendBudget;
 import ca.spottedleaf.moonrise.patches.chunk_system.player.ChunkSystemServerPlayer;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.DynamicViewDistance;
+import ca.spottedleaf.moonrise.patches.chunk_system.player.RegionizedPlayerChunkLoader;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.executor.RadiusAwarePrioritisedExecutor;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkFullTask;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkLightTask;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkLoadTask;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkProgressionTask;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.ChunkUpgradeGenericStatusTask;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task.GenerationTaskBatcher;
 import ca.spottedleaf.moonrise.patches.chunk_system.server.ChunkSystemMinecraftServer;
 import ca.spottedleaf.moonrise.patches.chunk_system.status.ChunkSystemChunkStep;
 import ca.spottedleaf.moonrise.patches.chunk_system.util.ParallelSearchRadiusIteration;
@@ -65,12 +70,40 @@ public final class ChunkTaskScheduler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ChunkTaskScheduler.class);
 
-    public static void init(final boolean useParallelGen) {
-        for (final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor executor : MoonriseCommon.RADIUS_AWARE_GROUP.getAllExecutors()) {
-            executor.setMaxParallelism(useParallelGen ? -1 : 1);
-        }
+    private static volatile boolean forceParallelPopulation;
+    private static volatile boolean safeParallelPopulation;
+
+    public static void init(final boolean useParallelGen, final boolean useSafeParallelGen,
+                            final List<String> safeAllowlist, final List<String> safeDenylist) {
+        ParallelPopulationFilter.init(safeAllowlist, safeDenylist);
+        forceParallelPopulation = useParallelGen;
+        safeParallelPopulation = useSafeParallelGen;
+
+        WorldExecutorShares.updateAll();
+
+        LOGGER.info("Chunk system is using population gen parallelism: " + (useParallelGen ? "all" : (useSafeParallelGen ? "safe only" : "none")));
+    }
 
-        LOGGER.info("Chunk system is using population gen parallelism: " + useParallelGen);
+    private static boolean isSafeParallelPopulation() {
+        // otherwise, either everything is parallel or the executor is already limited to one task at a time
+        return safeParallelPopulation && !forceParallelPopulation;
+    }
+
+    /**
+     * Returns whether tasks for the specified status must be checked against the safe population filter (see
+     * {@link #isExclusivePopulation(ServerLevel, ChunkAccess, int)}) before running. Only FEATURES generation is
+     * checked, every other status only holds its write radius as it does with full population parallelism.
+     */
+    public static boolean needsPopulationCheck(final ChunkStatus status, final boolean generation) {
+        return isSafeParallelPopulation() && generation && status == ChunkStatus.FEATURES;
+    }
+
+    /**
+     * Returns whether the FEATURES population of the specified chunk must be executed exclusively. This scans the
+     * biomes of every chunk in the write radius, so it must not be invoked while holding the scheduling lock.
+     */
+    public static boolean isExclusivePopulation(final ServerLevel world, final ChunkAccess chunk, final int writeRadius) {
+        return !ParallelPopulationFilter.isPopulationSafe(world, chunk, writeRadius);
     }
 
     public static final TicketType<Long> CHUNK_LOAD = TicketType.create("chunk_system:chunk_load", Long::compareTo);
@@ -121,9 +154,12 @@ public final class ChunkTaskScheduler {
     public final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor ioExecutor;
     public final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor compressionExecutor;
     public final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor saveExecutor;
+    public final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor packetExecutor;
 
     private final PrioritisedTaskQueue mainThreadExecutor = new PrioritisedTaskQueue();
 
+    public final GenerationTaskBatcher generationTaskBatcher = new GenerationTaskBatcher();
+
     public final ChunkHolderManager chunkHolderManager;
 
     static {
@@ -264,7 +300,7 @@ public final class ChunkTaskScheduler {
     }
 
 
-    public final ReentrantAreaLock schedulingLockArea;
+    public final MonitoredAreaLock schedulingLockArea;
     private final int lockShift;
 
     public final int getChunkSystemLockShift() {
@@ -278,8 +314,15 @@ public final class ChunkTaskScheduler {
         // it must be >= ticket propagator section shift so that the ticket propagator can assume that owning a position implies owning
         // the entire section
         // we just take the max, as we want the smallest shift that satisfies these properties
-        this.lockShift = Math.max(((ChunkSystemServerLevel)world).moonrise$getRegionChunkShift(), ThreadedTicketLevelPropagator.SECTION_SHIFT);
-        this.schedulingLockArea = new ReentrantAreaLock(this.getChunkSystemLockShift());
+        final int minLockShift = Math.max(((ChunkSystemServerLevel)world).moonrise$getRegionChunkShift(), ThreadedTicketLevelPropagator.SECTION_SHIFT);
+        // a world may be configured to use coarser locks, i.e for sparse worlds where the extra lock nodes are not worth it
+        // finer locks are not possible, as that would break the properties above
+        final int configuredLockShift = PlatformHooks.get().configChunkSystemLockShift(world);
+        if (configuredLockShift >= 0 && configuredLockShift < minLockShift) {
+            LOGGER.warn("Configured lock shift " + configuredLockShift + " for world '" + WorldUtil.getWorldName(world) + "' is below the minimum of " + minLockShift + ", using the minimum");
+        }
+        this.lockShift = Math.max(minLockShift, configuredLockShift);
+        this.schedulingLockArea = new MonitoredAreaLock("scheduling", this.getChunkSystemLockShift());
 
         this.parallelGenExecutor = MoonriseCommon.PARALLEL_GEN_GROUP.createExecutor(-1, MoonriseCommon.WORKER_QUEUE_HOLD_TIME, 0);
         this.radiusAwareGenExecutor = MoonriseCommon.RADIUS_AWARE_GROUP.createExecutor(1, MoonriseCommon.WORKER_QUEUE_HOLD_TIME, 0);
@@ -289,7 +332,68 @@ public final class ChunkTaskScheduler {
         // we need a separate executor here so that on shutdown we can continue to process I/O tasks
         this.compressionExecutor = MoonriseCommon.LOAD_GROUP.createExecutor(-1, MoonriseCommon.WORKER_QUEUE_HOLD_TIME, 0);
         this.saveExecutor = MoonriseCommon.LOAD_GROUP.createExecutor(-1, MoonriseCommon.WORKER_QUEUE_HOLD_TIME, 0);
+        this.packetExecutor = MoonriseCommon.LOAD_GROUP.createExecutor(-1, MoonriseCommon.WORKER_QUEUE_HOLD_TIME, 0);
         this.chunkHolderManager = new ChunkHolderManager(world, this);
+        this.workerExecutors = new PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor[] {
+            this.parallelGenExecutor, this.radiusAwareGenExecutor, this.loadExecutor,
+            this.compressionExecutor, this.saveExecutor, this.packetExecutor
+        };
+        this.workerExecutorsActive = new boolean[this.workerExecutors.length];
+        this.workerExecutorCaps = new int[this.workerExecutors.length];
+        this.workerExecutorParallelism = new int[this.workerExecutors.length];
+        Arrays.fill(this.workerExecutorParallelism, Integer.MIN_VALUE);
+    }
+
+    // all executors which run on the worker pool, these share one budget, see WorldExecutorShares
+    private final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor[] workerExecutors;
+    private final boolean[] workerExecutorsActive;
+    private final int[] workerExecutorCaps;
+    private final int[] workerExecutorParallelism;
+    private int ioExecutorParallelism = Integer.MIN_VALUE;
+
+    boolean hasQueuedWork() {
+        if (this.ioExecutor.isActive()) {
+            return true;
+        }
+        for (final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor executor : this.workerExecutors) {
+            if (executor.isActive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void updateExecutorShares() {
+        final double share = WorldExecutorShares.getShare(this.world);
+        final int workerBudget = WorldExecutorShares.getWorkerParallelism(share);
+        final int ioParallelism = WorldExecutorShares.getIOParallelism(share);
+        final boolean parallelPopulation = forceParallelPopulation || safeParallelPopulation;
+
+        final PrioritisedThreadPool.ExecutorGroup.ThreadPoolExecutor[] executors = this.workerExecutors;
+        final int[] parallelism = this.workerExecutorParallelism;
+        final int[] newParallelism = new int[executors.length];
+
+        for (int i = 0; i < executors.length; ++i) {
+            this.workerExecutorsActive[i] = executors[i].isActive();
+            this.workerExecutorCaps[i] = executors[i] == this.radiusAwareGenExecutor && !parallelPopulation ? 1 : -1;
+        }
+
+        if (workerBudget < 0) {
+            System.arraycopy(this.workerExecutorCaps, 0, newParallelism, 0, executors.length);
+        } else {
+            WorldExecutorShares.splitBudget(workerBudget, this.workerExecutorsActive, this.workerExecutorCaps, newParallelism);
+        }
+
+        for (int i = 0; i < executors.length; ++i) {
+            if (parallelism[i] != newParallelism[i]) {
+                parallelism[i] = newParallelism[i];
+                executors[i].setMaxParallelism(newParallelism[i]);
+            }
+        }
+        if (this.ioExecutorParallelism != ioParallelism) {
+            this.ioExecutorParallelism = ioParallelism;
+            this.ioExecutor.setMaxParallelism(ioParallelism);
+        }
     }
 
     private final AtomicBoolean failedChunkSystem = new AtomicBoolean();
@@ -761,9 +865,58 @@ public final class ChunkTaskScheduler {
 
         chunkHolder.setGenerationTask(task, toStatus, chunkHolderNeighbours);
 
+        if (PriorityAging.isEnabled()) {
+            PriorityAging.track(new GenerationAgingEntry(this, chunkX, chunkZ, task));
+        }
+
         return task;
     }
 
+    private static final class GenerationAgingEntry extends PriorityAging.Entry {
+
+        private final ChunkTaskScheduler scheduler;
+        private final int chunkX;
+        private final int chunkZ;
+        private final ChunkProgressionTask task;
+
+        private GenerationAgingEntry(final ChunkTaskScheduler scheduler, final int chunkX, final int chunkZ,
+                                     final ChunkProgressionTask task) {
+            this.scheduler = scheduler;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.task = task;
+        }
+
+        @Override
+        protected Priority getPriority() {
+            return this.task.getPriority();
+        }
+
+        @Override
+        protected void raisePriority(final Priority priority) {
+            // raise through the holder, so that the neighbours the task is waiting on are raised as well
+            final ReentrantAreaLock.Node schedulingLock = this.scheduler.schedulingLockArea.lock(this.chunkX, this.chunkZ);
+            try {
+                final NewChunkHolder holder = this.scheduler.chunkHolderManager.getChunkHolder(this.chunkX, this.chunkZ);
+                if (holder != null && !this.task.isCompleted()) {
+                    holder.raisePriority(priority);
+                }
+            } finally {
+                this.scheduler.schedulingLockArea.unlock(schedulingLock);
+            }
+        }
+
+        @Override
+        protected boolean isDone() {
+            return this.task.isCompleted();
+        }
+
+        @Override
+        public String toString() {
+            return "GenerationAgingEntry{task=" + this.task + "}";
+        }
+    }
+
     // rets true if the neighbour is not at the required status, false otherwise
     private boolean checkNeighbour(final int chunkX, final int chunkZ, final ChunkStatus requiredStatus, final NewChunkHolder center,
                                    final List<ChunkProgressionTask> tasks, final Priority minPriority) {
@@ -832,16 +985,19 @@ public final class ChunkTaskScheduler {
     }
 
     public boolean halt(final boolean sync, final long maxWaitNS) {
+        WorldExecutorShares.unregister(this);
         this.radiusAwareGenExecutor.halt();
         this.parallelGenExecutor.halt();
         this.loadExecutor.halt();
+        this.packetExecutor.halt();
         if (sync) {
             final long time = System.nanoTime();
             for (long failures = 9L;; failures = ConcurrentUtil.linearLongBackoff(failures, 500_000L, 50_000_000L)) {
                 if (
                         !this.radiusAwareGenExecutor.isActive() &&
                         !this.parallelGenExecutor.isActive() &&
-                        !this.loadExecutor.isActive()
+                        !this.loadExecutor.isActive() &&
+                        !this.packetExecutor.isActive()
                 ) {
                     return true;
                 }
@@ -948,6 +1104,11 @@ public final class ChunkTaskScheduler {
 
         ret.add("view-distances", ((ChunkSystemServerPlayer)player).moonrise$getViewDistanceHolder().toJson());
 
+        final RegionizedPlayerChunkLoader.PlayerChunkLoaderData loader = ((ChunkSystemServerPlayer)player).moonrise$getChunkLoader();
+        if (loader != null) {
+            ret.add("chunk-loader", loader.getDebugJson());
+        }
+
         return ret;
     }
 
@@ -958,10 +1119,18 @@ public final class ChunkTaskScheduler {
         ret.addProperty("ticket_shift", Integer.valueOf(ThreadedTicketLevelPropagator.SECTION_SHIFT));
         ret.addProperty("region_shift", Integer.valueOf(((ChunkSystemServerLevel)this.world).moonrise$getRegionChunkShift()));
 
+        final JsonArray lockContention = new JsonArray();
+        ret.add("lock_contention", lockContention);
+        lockContention.add(this.chunkHolderManager.ticketLockArea.toDebugJson());
+        lockContention.add(this.schedulingLockArea.toDebugJson());
+
+        ret.add("executor_share", WorldExecutorShares.getDebugJson(this.world));
+
         ret.addProperty("name", WorldUtil.getWorldName(this.world));
         ret.addProperty("view-distance", ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getAPIViewDistance());
         ret.addProperty("tick-distance", ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getAPITickDistance());
         ret.addProperty("send-distance", ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getAPISendViewDistance());
+        ret.add("chunk-packet-cache", ((ChunkSystemServerLevel)this.world).moonrise$getPlayerChunkLoader().getChunkPacketCache().getDebugJson());
 
         final JsonArray players = new JsonArray();
         ret.add("players", players);
@@ -987,6 +1156,11 @@ public final class ChunkTaskScheduler {
             allPlayers.add(debugPlayer(player));
         }
 
+        ret.add("memory-pressure", MemoryPressureGovernor.getDebugJson());
+        ret.add("priority-aging", PriorityAging.getDebugJson());
+        ret.add("send-budget", ChunkSendBudget.getDebugJson());
+        ret.add("dynamic-view-distance", DynamicViewDistance.getDebugJson());
+
         final JsonArray chunkWaitInfos = new JsonArray();
         ret.add("chunk-wait-infos", chunkWaitInfos);
 
@@ -0,0 +1,51 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling;
+
+import ca.spottedleaf.moonrise.common.util.MoonriseCommon;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+
+/**
+ * Configuration for the idle mode of the chunk system, and the shrinking of the worker pool once every world
+ * is idle. The idle state of each world is tracked by its {@link ChunkHolderManager}.
+ */
+public final class IdlePowerMode {
+
+    private static volatile boolean enabled;
+    private static volatile long delayTicks;
+    private static volatile int idleWorkerThreads = 1;
+
+    public static void init(final boolean enabled, final long delayTicks, final int idleWorkerThreads) {
+        IdlePowerMode.enabled = enabled;
+        IdlePowerMode.delayTicks = Math.max(0L, delayTicks);
+        IdlePowerMode.idleWorkerThreads = Math.max(1, idleWorkerThreads);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static long getDelayTicks() {
+        return delayTicks;
+    }
+
+    /**
+     * Shrinks the worker pool if every world of the server is idle, or restores it otherwise. Must be called
+     * on the main thread whenever the idle state of a world changes.
+     */
+    public static void updateWorkerPool(final MinecraftServer server) {
+        boolean allIdle = true;
+        for (final ServerLevel world : server.getAllLevels()) {
+            if (!((ChunkSystemServerLevel)world).moonrise$getChunkTaskScheduler().chunkHolderManager.isIdle()) {
+                allIdle = false;
+                break;
+            }
+        }
+
+        MoonriseCommon.setWorkerPoolIdle(allIdle, idleWorkerThreads);
+        // the shares are fractions of the threads the pool currently runs
+        WorldExecutorShares.updateAll();
+    }
+
+    private IdlePowerMode() {}
+}
@@ -0,0 +1,222 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling;
+
+import ca.spottedleaf.moonrise.common.PlatformHooks;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles chunk loading/generation and accelerates chunk unloading based on the heap occupancy
+ * observed after the most recent garbage collection.
+ */
+public final class MemoryPressureGovernor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryPressureGovernor.class);
+
+    // the collection usage is only updated after a GC, so there is no point in sampling more often than this
+    private static final long SAMPLE_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500L);
+    // the occupancy must drop this far below a level's threshold before we start recovering from that level
+    private static final double RECOVERY_HYSTERESIS = 0.05;
+
+    public static enum PressureLevel {
+        // loadScale, genScale, unloadScale, viewDistanceReduction
+        NONE(1.0, 1.0, 1, 0),
+        ELEVATED(0.5, 0.25, 2, 0),
+        HIGH(0.25, 0.10, 4, 2),
+        CRITICAL(0.10, 0.05, 8, 4);
+
+        public final double loadScale;
+        public final double genScale;
+        public final int unloadScale;
+        public final int viewDistanceReduction;
+
+        private PressureLevel(final double loadScale, final double genScale, final int unloadScale,
+                              final int viewDistanceReduction) {
+            this.loadScale = loadScale;
+            this.genScale = genScale;
+            this.unloadScale = unloadScale;
+            this.viewDistanceReduction = viewDistanceReduction;
+        }
+    }
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = new ArrayList<>();
+    static {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                HEAP_POOLS.add(pool);
+            }
+        }
+    }
+
+    private static volatile PressureLevel level = PressureLevel.NONE;
+    private static volatile double lastOccupancy;
+    private static long lastSample = System.nanoTime() - SAMPLE_INTERVAL;
+    private static long recoveryStart = Long.MIN_VALUE;
+
+    public static PressureLevel getLevel() {
+        return level;
+    }
+
+    public static double getLastOccupancy() {
+        return lastOccupancy;
+    }
+
+    // returns the occupancy of the heap after the last GC, in [0, 1], or a negative value if unknown
+    private static double sampleOccupancy() {
+        final long max = Runtime.getRuntime().maxMemory();
+        if (HEAP_POOLS.isEmpty() || max <= 0L || max == Long.MAX_VALUE) {
+            return -1.0;
+        }
+
+        long used = 0L;
+        for (final MemoryPoolMXBean pool : HEAP_POOLS) {
+            final MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+
+        return (double)used / (double)max;
+    }
+
+    private static double getThreshold(final PressureLevel level) {
+        final double elevated = PlatformHooks.get().configMemoryPressureElevatedThreshold();
+        final double critical = Math.max(elevated, PlatformHooks.get().configMemoryPressureCriticalThreshold());
+
+        switch (level) {
+            case NONE:
+                return 0.0;
+            case ELEVATED:
+                return elevated;
+            case HIGH:
+                return 0.5 * (elevated + critical);
+            case CRITICAL:
+                return critical;
+            default:
+                throw new IllegalStateException("Unknown level: " + level);
+        }
+    }
+
+    private static PressureLevel getTargetLevel(final double occupancy) {
+        final PressureLevel[] levels = PressureLevel.values();
+        for (int i = levels.length - 1; i > 0; --i) {
+            if (occupancy >= getThreshold(levels[i])) {
+                return levels[i];
+            }
+        }
+        return PressureLevel.NONE;
+    }
+
+    private static void setLevel(final PressureLevel newLevel, final double occupancy) {
+        final PressureLevel oldLevel = level;
+        if (oldLevel == newLevel) {
+            return;
+        }
+        level = newLevel;
+
+        final String message = "Memory pressure changed from " + oldLevel + " to " + newLevel
+            + " (heap occupancy after GC: " + String.format("%.1f", occupancy * 100.0) + "%)";
+        if (newLevel.ordinal() > oldLevel.ordinal()) {
+            LOGGER.warn(message);
+        } else {
+            LOGGER.info(message);
+        }
+    }
+
+    public static synchronized void tick() {
+        final long time = System.nanoTime();
+        if (time - lastSample < SAMPLE_INTERVAL) {
+            return;
+        }
+        lastSample = time;
+
+        if (!PlatformHooks.get().configMemoryPressureGovernor()) {
+            recoveryStart = Long.MIN_VALUE;
+            setLevel(PressureLevel.NONE, lastOccupancy);
+            return;
+        }
+
+        final double occupancy = sampleOccupancy();
+        if (occupancy < 0.0) {
+            return;
+        }
+        lastOccupancy = occupancy;
+
+        final PressureLevel current = level;
+        final PressureLevel target = getTargetLevel(occupancy);
+
+        if (target.ordinal() >= current.ordinal()) {
+            // escalate immediately, we may be close to running out of memory
+            recoveryStart = Long.MIN_VALUE;
+            setLevel(target, occupancy);
+            return;
+        }
+
+        // restore one level at a time, and only once the occupancy has stayed low for the recovery time
+        if (occupancy >= getThreshold(current) - RECOVERY_HYSTERESIS) {
+            recoveryStart = Long.MIN_VALUE;
+            return;
+        }
+
+        if (recoveryStart == Long.MIN_VALUE) {
+            recoveryStart = time;
+            return;
+        }
+
+        if (time - recoveryStart >= Math.max(0L, PlatformHooks.get().configMemoryPressureRecoveryTime())) {
+            recoveryStart = Long.MIN_VALUE;
+            setLevel(PressureLevel.values()[current.ordinal() - 1], occupancy);
+        }
+    }
+
+    // defaultLimit is scaled in place of an unlimited (Integer.MAX_VALUE) limit, which would otherwise stay unlimited
+    public static long scaleMaxLoads(final long maxLoads, final long defaultLimit) {
+        return scale(maxLoads, defaultLimit, level.loadScale);
+    }
+
+    public static long scaleMaxGenerates(final long maxGenerates, final long defaultLimit) {
+        return scale(maxGenerates, defaultLimit, level.genScale);
+    }
+
+    private static long scale(final long value, final long defaultLimit, final double scale) {
+        if (scale >= 1.0) {
+            return value;
+        }
+        final long limit = value >= (long)Integer.MAX_VALUE ? defaultLimit : value;
+        // allow at least one in-flight operation so that players are not stuck entirely
+        return Math.max(1L, (long)Math.floor((double)limit * scale));
+    }
+
+    public static int scaleUnloadCount(final int unloadCount) {
+        return (int)Math.min((long)Integer.MAX_VALUE, (long)unloadCount * (long)level.unloadScale);
+    }
+
+    public static int getViewDistanceReduction() {
+        return level.viewDistanceReduction;
+    }
+
+    public static JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        final PressureLevel level = MemoryPressureGovernor.level;
+
+        ret.addProperty("enabled", PlatformHooks.get().configMemoryPressureGovernor());
+        ret.addProperty("level", level.name());
+        ret.addProperty("heap_occupancy", lastOccupancy);
+        ret.addProperty("load_scale", level.loadScale);
+        ret.addProperty("gen_scale", level.genScale);
+        ret.addProperty("unload_scale", level.unloadScale);
+        ret.addProperty("view_distance_reduction", level.viewDistanceReduction);
+
+        return ret;
+    }
+
+    private MemoryPressureGovernor() {}
+}
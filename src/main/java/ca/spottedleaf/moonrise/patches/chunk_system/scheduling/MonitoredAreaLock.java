@@ -0,0 +1,211 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling;
+
+import ca.spottedleaf.concurrentutil.lock.ReentrantAreaLock;
+import ca.spottedleaf.concurrentutil.map.ConcurrentLong2ReferenceChainedHashTable;
+import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a {@link ReentrantAreaLock} to record the time spent waiting for and holding each lock section, if
+ * lock contention metrics are enabled. At most {@link #MAX_TRACKED_REGIONS} sections are tracked per lock, the
+ * totals include every section.
+ */
+public final class MonitoredAreaLock {
+
+    private static final int HOTTEST_REGIONS = 10;
+    // once exceeded, only the half of the regions with the most wait time is kept
+    private static final int MAX_TRACKED_REGIONS = 1024;
+
+    private static volatile boolean metricsEnabled;
+
+    private static final ThreadLocal<Reference2ObjectOpenHashMap<ReentrantAreaLock.Node, HoldRecord>> HELD = ThreadLocal.withInitial(Reference2ObjectOpenHashMap::new);
+
+    public static void setMetricsEnabled(final boolean enabled) {
+        metricsEnabled = enabled;
+    }
+
+    private final String name;
+    private final ReentrantAreaLock lock;
+    private final int coordinateShift;
+    private final ConcurrentLong2ReferenceChainedHashTable<RegionStats> regionStats = new ConcurrentLong2ReferenceChainedHashTable<>();
+    private final RegionStats totalStats = new RegionStats(0L);
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    // number of held nodes with a hold record, so that unlocking does not touch HELD unless metrics were enabled
+    private final AtomicLong recordedHolds = new AtomicLong();
+
+    public MonitoredAreaLock(final String name, final int coordinateShift) {
+        this.name = name;
+        this.lock = new ReentrantAreaLock(coordinateShift);
+        this.coordinateShift = coordinateShift;
+    }
+
+    public ReentrantAreaLock getLock() {
+        return this.lock;
+    }
+
+    public int getCoordinateShift() {
+        return this.coordinateShift;
+    }
+
+    public boolean isHeldByCurrentThread(final int x, final int z) {
+        return this.lock.isHeldByCurrentThread(x, z);
+    }
+
+    public boolean isHeldByCurrentThread(final int centerX, final int centerZ, final int radius) {
+        return this.lock.isHeldByCurrentThread(centerX, centerZ, radius);
+    }
+
+    public ReentrantAreaLock.Node lock(final int x, final int z) {
+        if (!metricsEnabled) {
+            return this.lock.lock(x, z);
+        }
+        final long start = System.nanoTime();
+        return this.onAcquire(this.lock.lock(x, z), x, z, start);
+    }
+
+    public ReentrantAreaLock.Node lock(final int centerX, final int centerZ, final int radius) {
+        if (!metricsEnabled) {
+            return this.lock.lock(centerX, centerZ, radius);
+        }
+        final long start = System.nanoTime();
+        return this.onAcquire(this.lock.lock(centerX, centerZ, radius), centerX, centerZ, start);
+    }
+
+    public ReentrantAreaLock.Node lock(final int fromX, final int fromZ, final int toX, final int toZ) {
+        if (!metricsEnabled) {
+            return this.lock.lock(fromX, fromZ, toX, toZ);
+        }
+        final long start = System.nanoTime();
+        // attribute area locks to the section at their centre
+        return this.onAcquire(this.lock.lock(fromX, fromZ, toX, toZ), (fromX + toX) >> 1, (fromZ + toZ) >> 1, start);
+    }
+
+    public void unlock(final ReentrantAreaLock.Node node) {
+        // note: a lock acquired while metrics were disabled has no record, but metrics may have been disabled
+        // since this lock was acquired
+        final HoldRecord record = node == null || this.recordedHolds.get() == 0L ? null : HELD.get().remove(node);
+        this.lock.unlock(node);
+
+        if (record != null) {
+            this.recordedHolds.getAndDecrement();
+            final long held = System.nanoTime() - record.acquired;
+            record.stats.holdTime.getAndAdd(held);
+            this.totalStats.holdTime.getAndAdd(held);
+        }
+    }
+
+    private ReentrantAreaLock.Node onAcquire(final ReentrantAreaLock.Node node, final int x, final int z, final long start) {
+        final long acquired = System.nanoTime();
+        final long waited = acquired - start;
+
+        final long sectionKey = CoordinateUtils.getChunkKey(x >> this.coordinateShift, z >> this.coordinateShift);
+        RegionStats stats = this.regionStats.get(sectionKey);
+        if (stats == null) {
+            stats = this.regionStats.computeIfAbsent(sectionKey, RegionStats::new);
+            if (this.regionStats.size() > MAX_TRACKED_REGIONS) {
+                this.pruneRegions();
+            }
+        }
+
+        stats.record(waited);
+        this.totalStats.record(waited);
+
+        if (node != null) {
+            this.recordedHolds.getAndIncrement();
+            HELD.get().put(node, new HoldRecord(stats, acquired));
+        }
+
+        return node;
+    }
+
+    private List<RegionStats> getRegionsByWaitTime() {
+        final List<RegionStats> ret = new ArrayList<>();
+        for (final Iterator<RegionStats> iterator = this.regionStats.valueIterator(); iterator.hasNext();) {
+            ret.add(iterator.next());
+        }
+        ret.sort((final RegionStats s1, final RegionStats s2) -> {
+            return Long.compare(s2.waitTime.get(), s1.waitTime.get());
+        });
+
+        return ret;
+    }
+
+    private void pruneRegions() {
+        if (!this.pruning.compareAndSet(false, true)) {
+            // another thread is already pruning
+            return;
+        }
+        try {
+            final List<RegionStats> regions = this.getRegionsByWaitTime();
+            for (int i = MAX_TRACKED_REGIONS / 2, len = regions.size(); i < len; ++i) {
+                this.regionStats.remove(regions.get(i).sectionKey);
+            }
+        } finally {
+            this.pruning.set(false);
+        }
+    }
+
+    private static final record HoldRecord(RegionStats stats, long acquired) {}
+
+    private static final class RegionStats {
+
+        private final long sectionKey;
+        private final AtomicLong acquires = new AtomicLong();
+        private final AtomicLong waitTime = new AtomicLong();
+        private final AtomicLong maxWaitTime = new AtomicLong();
+        private final AtomicLong holdTime = new AtomicLong();
+
+        private RegionStats(final long sectionKey) {
+            this.sectionKey = sectionKey;
+        }
+
+        private void record(final long waited) {
+            this.acquires.getAndIncrement();
+            this.waitTime.getAndAdd(waited);
+            for (long curr = this.maxWaitTime.get(); waited > curr && !this.maxWaitTime.compareAndSet(curr, waited); curr = this.maxWaitTime.get());
+        }
+
+        private JsonObject toJson() {
+            final JsonObject ret = new JsonObject();
+
+            ret.addProperty("acquires", Long.valueOf(this.acquires.get()));
+            ret.addProperty("wait_time_ns", Long.valueOf(this.waitTime.get()));
+            ret.addProperty("max_wait_time_ns", Long.valueOf(this.maxWaitTime.get()));
+            ret.addProperty("hold_time_ns", Long.valueOf(this.holdTime.get()));
+
+            return ret;
+        }
+    }
+
+    public JsonObject toDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("name", this.name);
+        ret.addProperty("shift", Integer.valueOf(this.coordinateShift));
+        ret.addProperty("metrics_enabled", Boolean.valueOf(metricsEnabled));
+        ret.add("total", this.totalStats.toJson());
+
+        final List<RegionStats> regions = this.getRegionsByWaitTime();
+
+        final JsonArray hottest = new JsonArray();
+        ret.add("hottest_regions", hottest);
+
+        for (int i = 0, len = Math.min(HOTTEST_REGIONS, regions.size()); i < len; ++i) {
+            final RegionStats stats = regions.get(i);
+            final JsonObject region = stats.toJson();
+            hottest.add(region);
+
+            region.addProperty("sectionX", Integer.valueOf(CoordinateUtils.getChunkX(stats.sectionKey)));
+            region.addProperty("sectionZ", Integer.valueOf(CoordinateUtils.getChunkZ(stats.sectionKey)));
+        }
+
+        return ret;
+    }
+}
@@ -18,6 +18,7 @@ import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemChunkHolder;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemChunkStatus;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunkSection;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.entity.ChunkEntitySlices;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.poi.ChunkSystemPoiManager;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.poi.PoiChunk;
@@ -44,6 +45,7 @@ import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ImposterProtoChunk;
 import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
 import net.minecraft.world.level.chunk.storage.SerializableChunkData;
 import org.slf4j.Logger;
@@ -499,28 +501,50 @@ public final class NewChunkHolder {
     private ChunkProgressionTask generationTask;
     private ChunkStatus generationTaskStatus;
 
+    // Most holders (i.e ones only held for neighbour radius purposes at the edge of the loaded area) are never
+    // involved in generation scheduling for long, so they share these empty instances until the first write.
+    // They must never be written to.
+    private static final ReferenceLinkedOpenHashSet<NewChunkHolder> EMPTY_BLOCKING_NEIGHBOURS = new ReferenceLinkedOpenHashSet<>(0);
+    private static final Reference2ObjectLinkedOpenHashMap<NewChunkHolder, ChunkStatus> EMPTY_WAITING_NEIGHBOURS = new Reference2ObjectLinkedOpenHashMap<>(0);
+
     /**
      * contains the neighbours that this chunk generation is blocking on
      */
-    private final ReferenceLinkedOpenHashSet<NewChunkHolder> neighboursBlockingGenTask = new ReferenceLinkedOpenHashSet<>(4);
+    private ReferenceLinkedOpenHashSet<NewChunkHolder> neighboursBlockingGenTask = EMPTY_BLOCKING_NEIGHBOURS;
 
     /**
      * map of ChunkHolder -> Required Status for this chunk
      */
-    private final Reference2ObjectLinkedOpenHashMap<NewChunkHolder, ChunkStatus> neighboursWaitingForUs = new Reference2ObjectLinkedOpenHashMap<>();
+    private Reference2ObjectLinkedOpenHashMap<NewChunkHolder, ChunkStatus> neighboursWaitingForUs = EMPTY_WAITING_NEIGHBOURS;
 
     public void addGenerationBlockingNeighbour(final NewChunkHolder neighbour) {
+        if (this.neighboursBlockingGenTask == EMPTY_BLOCKING_NEIGHBOURS) {
+            this.neighboursBlockingGenTask = new ReferenceLinkedOpenHashSet<>(4);
+        }
         this.neighboursBlockingGenTask.add(neighbour);
     }
 
     public void addWaitingNeighbour(final NewChunkHolder neighbour, final ChunkStatus requiredStatus) {
         final boolean wasEmpty = this.neighboursWaitingForUs.isEmpty();
+        if (this.neighboursWaitingForUs == EMPTY_WAITING_NEIGHBOURS) {
+            this.neighboursWaitingForUs = new Reference2ObjectLinkedOpenHashMap<>(4);
+        }
         this.neighboursWaitingForUs.put(neighbour, requiredStatus);
         if (wasEmpty) {
             this.checkUnload();
         }
     }
 
+    // must hold scheduling lock
+    private void releaseEmptyNeighbourState() {
+        if (this.neighboursBlockingGenTask != EMPTY_BLOCKING_NEIGHBOURS && this.neighboursBlockingGenTask.isEmpty()) {
+            this.neighboursBlockingGenTask = EMPTY_BLOCKING_NEIGHBOURS;
+        }
+        if (this.neighboursWaitingForUs != EMPTY_WAITING_NEIGHBOURS && this.neighboursWaitingForUs.isEmpty()) {
+            this.neighboursWaitingForUs = EMPTY_WAITING_NEIGHBOURS;
+        }
+    }
+
     // priority state
 
     // the target priority for this chunk to generate at
@@ -772,11 +796,13 @@ public final class NewChunkHolder {
         if (this.unloaded) {
             return;
         }
+        this.releaseEmptyNeighbourState();
         if (this.isSafeToUnload() == null) {
             // ensure in unload queue
             if (!this.inUnloadQueue) {
                 this.inUnloadQueue = true;
                 this.scheduler.chunkHolderManager.unloadQueue.addChunk(this.chunkX, this.chunkZ);
+                this.scheduler.chunkHolderManager.onUnloadOrSaveQueued();
             }
         } else {
             // ensure not in unload queue
@@ -1349,9 +1375,13 @@ public final class NewChunkHolder {
         return this.requestedGenStatus;
     }
 
-    private final Reference2ObjectOpenHashMap<ChunkStatus, List<Consumer<ChunkAccess>>> statusWaiters = new Reference2ObjectOpenHashMap<>();
+    // allocated on demand, null if empty
+    private Reference2ObjectOpenHashMap<ChunkStatus, List<Consumer<ChunkAccess>>> statusWaiters;
 
     void addStatusConsumer(final ChunkStatus status, final Consumer<ChunkAccess> consumer) {
+        if (this.statusWaiters == null) {
+            this.statusWaiters = new Reference2ObjectOpenHashMap<>(4);
+        }
         this.statusWaiters.computeIfAbsent(status, (final ChunkStatus keyInMap) -> {
             return new ArrayList<>(4);
         }).add(consumer);
@@ -1376,6 +1406,10 @@ public final class NewChunkHolder {
     }
 
     private void completeStatusConsumers0(final ChunkStatus status, final ChunkAccess chunk) {
+        if (this.statusWaiters == null) {
+            return;
+        }
+
         final List<Consumer<ChunkAccess>> consumers;
         consumers = this.statusWaiters.remove(status);
 
@@ -1383,6 +1417,10 @@ public final class NewChunkHolder {
             return;
         }
 
+        if (this.statusWaiters.isEmpty()) {
+            this.statusWaiters = null;
+        }
+
         // must be scheduled to main, we do not trust the callback to not do anything stupid
         this.scheduler.scheduleChunkTask(this.chunkX, this.chunkZ, () -> {
             for (final Consumer<ChunkAccess> consumer : consumers) {
@@ -1395,15 +1433,23 @@ public final class NewChunkHolder {
         }, Priority.HIGHEST);
     }
 
-    private final Reference2ObjectOpenHashMap<FullChunkStatus, List<Consumer<LevelChunk>>> fullStatusWaiters = new Reference2ObjectOpenHashMap<>();
+    // allocated on demand, null if empty
+    private Reference2ObjectOpenHashMap<FullChunkStatus, List<Consumer<LevelChunk>>> fullStatusWaiters;
 
     void addFullStatusConsumer(final FullChunkStatus status, final Consumer<LevelChunk> consumer) {
+        if (this.fullStatusWaiters == null) {
+            this.fullStatusWaiters = new Reference2ObjectOpenHashMap<>(4);
+        }
         this.fullStatusWaiters.computeIfAbsent(status, (final FullChunkStatus keyInMap) -> {
             return new ArrayList<>(4);
         }).add(consumer);
     }
 
     private void completeFullStatusConsumers(FullChunkStatus status, final LevelChunk chunk) {
+        if (this.fullStatusWaiters == null) {
+            return;
+        }
+
         final List<Consumer<LevelChunk>> consumers;
         consumers = this.fullStatusWaiters.remove(status);
 
@@ -1411,6 +1457,10 @@ public final class NewChunkHolder {
             return;
         }
 
+        if (this.fullStatusWaiters.isEmpty()) {
+            this.fullStatusWaiters = null;
+        }
+
         // must be scheduled to main, we do not trust the callback to not do anything stupid
         this.scheduler.scheduleChunkTask(this.chunkX, this.chunkZ, () -> {
             for (final Consumer<LevelChunk> consumer : consumers) {
@@ -1545,6 +1595,7 @@ public final class NewChunkHolder {
             // remove last; access to entry will throw if removed
             iterator.remove();
         }
+        this.releaseEmptyNeighbourState();
 
         if (newStatus == ChunkStatus.FULL) {
             this.lockPriority();
@@ -1673,6 +1724,37 @@ public final class NewChunkHolder {
     }
 
     public long lastAutoSave;
+    // the tick at which the last adaptive unload cooldown for this holder ends, see ChunkHolderManager#processUnloads
+    long unloadCooldownEnd = Long.MIN_VALUE;
+
+    // relative weights of the work done by an autosave, see getAutoSaveCost
+    private static final int AUTOSAVE_BASE_COST = 4;
+    private static final int AUTOSAVE_DIRTY_SECTION_COST = 4;
+
+    /**
+     * Returns an estimate of the work that {@link #save(boolean)} would perform for this holder, in arbitrary units.
+     * The chunk system converts these units to time using the measured cost of previous saves.
+     */
+    public int getAutoSaveCost() {
+        int ret = AUTOSAVE_BASE_COST;
+
+        final ChunkAccess chunk = this.getCurrentChunk();
+        if (chunk instanceof LevelChunk levelChunk && chunk.isUnsaved()) {
+            ret += levelChunk.getBlockEntities().size();
+            for (final LevelChunkSection section : chunk.getSections()) {
+                if (((ChunkSystemLevelChunkSection)section).moonrise$isSerializationDirty()) {
+                    ret += AUTOSAVE_DIRTY_SECTION_COST;
+                }
+            }
+        }
+
+        final ChunkEntitySlices entities = this.getEntityChunk();
+        if (entities != null) {
+            ret += entities.getEntityCount();
+        }
+
+        return ret;
+    }
 
     public static final record SaveStat(boolean savedChunk, boolean savedEntityChunk, boolean savedPoiChunk) {}
 
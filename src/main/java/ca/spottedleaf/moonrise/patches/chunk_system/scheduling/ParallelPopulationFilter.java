@@ -0,0 +1,176 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemLevel;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.placement.PlacedFeature;
+import net.minecraft.world.level.levelgen.structure.Structure;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Determines whether the FEATURES population of a chunk may run in parallel with the population of other chunks.
+ * A chunk is considered safe only if every biome, placed feature, feature type and structure which population may
+ * touch is matched by the allowlist and not matched by the denylist.
+ * <p>
+ * Entries in either list are either a namespace (i.e {@code minecraft}), which matches every id in that
+ * namespace, or a full id (i.e {@code minecraft:end_spike}).
+ * </p>
+ */
+public final class ParallelPopulationFilter {
+
+    private static volatile Filter filter = new Filter(Collections.emptyList(), Collections.emptyList());
+
+    // the results only depend on the filter and the registries, so they are safe to share across the worlds of
+    // one server. the caches are replaced once a different registry is seen, i.e for the next integrated server
+    private static volatile RegistryCache cache;
+
+    public static void init(final List<String> allowlist, final List<String> denylist) {
+        filter = new Filter(allowlist, denylist);
+        cache = null;
+    }
+
+    private static RegistryCache getCache(final Registry<Biome> biomeRegistry, final Registry<Structure> structureRegistry) {
+        final RegistryCache current = cache;
+        if (current != null && current.biomeRegistry == biomeRegistry && current.structureRegistry == structureRegistry) {
+            return current;
+        }
+        return cache = new RegistryCache(biomeRegistry, structureRegistry);
+    }
+
+    private static final class RegistryCache {
+
+        private final Registry<Biome> biomeRegistry;
+        private final Registry<Structure> structureRegistry;
+        private final Map<Holder<Biome>, Boolean> biomes = new ConcurrentHashMap<>();
+        private final Map<Structure, Boolean> structures = new ConcurrentHashMap<>();
+
+        private RegistryCache(final Registry<Biome> biomeRegistry, final Registry<Structure> structureRegistry) {
+            this.biomeRegistry = biomeRegistry;
+            this.structureRegistry = structureRegistry;
+        }
+    }
+
+    private static boolean isAllowed(final Optional<? extends ResourceKey<?>> key) {
+        return key.isPresent() && filter.test(key.get().location());
+    }
+
+    private static boolean isAllowed(final ResourceLocation id) {
+        return id != null && filter.test(id);
+    }
+
+    private static boolean isBiomeSafe(final Holder<Biome> biome) {
+        if (!isAllowed(biome.unwrapKey())) {
+            return false;
+        }
+
+        for (final HolderSet<PlacedFeature> step : biome.value().getGenerationSettings().features()) {
+            for (final Holder<PlacedFeature> placedFeature : step) {
+                if (!isAllowed(placedFeature.unwrapKey())) {
+                    return false;
+                }
+                if (!isAllowed(BuiltInRegistries.FEATURE.getKey(placedFeature.value().feature().value().feature()))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isStructureSafe(final Registry<Structure> registry, final Structure structure) {
+        return isAllowed(registry.getKey(structure));
+    }
+
+    /**
+     * Returns whether population of the specified chunk is safe to run in parallel. The chunk's neighbours within
+     * the population radius must be loaded, as features may be taken from their biomes as well.
+     */
+    public static boolean isPopulationSafe(final ServerLevel world, final ChunkAccess chunk, final int radius) {
+        final int chunkX = chunk.getPos().x;
+        final int chunkZ = chunk.getPos().z;
+
+        final Set<Holder<Biome>> biomes = new HashSet<>();
+        for (int dz = -radius; dz <= radius; ++dz) {
+            for (int dx = -radius; dx <= radius; ++dx) {
+                final ChunkAccess neighbour = (dx | dz) == 0 ? chunk : ((ChunkSystemLevel)world).moonrise$getAnyChunkIfLoaded(chunkX + dx, chunkZ + dz);
+                if (neighbour == null) {
+                    // should not happen, but we cannot tell what will be placed
+                    return false;
+                }
+                for (final LevelChunkSection section : neighbour.getSections()) {
+                    section.getBiomes().getAll(biomes::add);
+                }
+            }
+        }
+
+        final Registry<Structure> structureRegistry = world.registryAccess().lookupOrThrow(Registries.STRUCTURE);
+        final RegistryCache cache = getCache(world.registryAccess().lookupOrThrow(Registries.BIOME), structureRegistry);
+
+        for (final Holder<Biome> biome : biomes) {
+            if (!cache.biomes.computeIfAbsent(biome, ParallelPopulationFilter::isBiomeSafe).booleanValue()) {
+                return false;
+            }
+        }
+
+        for (final Structure structure : chunk.getAllReferences().keySet()) {
+            if (!cache.structures.computeIfAbsent(structure, (final Structure keyInMap) -> {
+                return Boolean.valueOf(isStructureSafe(structureRegistry, keyInMap));
+            }).booleanValue()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class Filter {
+
+        private final Set<String> allowedNamespaces = new HashSet<>();
+        private final Set<ResourceLocation> allowedIds = new HashSet<>();
+        private final Set<String> deniedNamespaces = new HashSet<>();
+        private final Set<ResourceLocation> deniedIds = new HashSet<>();
+
+        private Filter(final List<String> allowlist, final List<String> denylist) {
+            parse(allowlist, this.allowedNamespaces, this.allowedIds);
+            parse(denylist, this.deniedNamespaces, this.deniedIds);
+        }
+
+        private static void parse(final List<String> entries, final Set<String> namespaces, final Set<ResourceLocation> ids) {
+            for (final String entry : entries) {
+                if (entry.indexOf(':') == -1) {
+                    namespaces.add(entry);
+                } else {
+                    final ResourceLocation id = ResourceLocation.tryParse(entry);
+                    if (id == null) {
+                        throw new IllegalArgumentException("Invalid id: " + entry);
+                    }
+                    ids.add(id);
+                }
+            }
+        }
+
+        private boolean test(final ResourceLocation id) {
+            if (this.deniedIds.contains(id) || this.deniedNamespaces.contains(id.getNamespace())) {
+                return false;
+            }
+            return this.allowedIds.contains(id) || this.allowedNamespaces.contains(id.getNamespace());
+        }
+    }
+
+    private ParallelPopulationFilter() {}
+}
@@ -0,0 +1,159 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling;
+
+import ca.spottedleaf.concurrentutil.util.Priority;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raises the priority of tasks which have been waiting for too long, so that low priority work such as far away
+ * generation or saving cannot be starved indefinitely by a constant stream of higher priority work.
+ * <p>
+ * Each tracked task is raised one step every time it has waited for the configured threshold since it was
+ * tracked or last raised, until its priority is at or above the configured ceiling.
+ * </p>
+ */
+public final class PriorityAging {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriorityAging.class);
+
+    private static final long SCAN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(250L);
+
+    private static volatile boolean enabled;
+    private static volatile long threshold = TimeUnit.SECONDS.toNanos(10L);
+    private static volatile Priority ceiling = Priority.NORMAL;
+
+    private static final ConcurrentLinkedQueue<Entry> PENDING = new ConcurrentLinkedQueue<>();
+    // only accessed by the thread calling tick()
+    private static final List<Entry> TRACKED = new ArrayList<>();
+    private static long lastScan = System.nanoTime() - SCAN_INTERVAL;
+    private static long totalRaises;
+
+    public static void init(final boolean enabled, final long thresholdNS, final String ceiling) {
+        final Priority parsed;
+        try {
+            parsed = Priority.valueOf(ceiling.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown priority: " + ceiling, ex);
+        }
+        if (!Priority.isValidPriority(parsed) || parsed.isHigherPriority(Priority.HIGHEST)) {
+            throw new IllegalArgumentException("Priority aging ceiling must be a schedulable priority no higher than HIGHEST: " + ceiling);
+        }
+
+        PriorityAging.threshold = Math.max(1L, thresholdNS);
+        PriorityAging.ceiling = parsed;
+        PriorityAging.enabled = enabled;
+
+        LOGGER.info("Chunk system priority aging is " + (enabled ? "enabled, raising tasks every " + TimeUnit.NANOSECONDS.toMillis(thresholdNS) + "ms up to " + parsed : "disabled"));
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts tracking the specified task, if aging is enabled. The entry is dropped once {@link Entry#isDone()}
+     * returns {@code true}. May be called from any thread.
+     */
+    public static void track(final Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        entry.lastRaise = System.nanoTime();
+        PENDING.add(entry);
+    }
+
+    public static synchronized void tick() {
+        final long time = System.nanoTime();
+        if (time - lastScan < SCAN_INTERVAL) {
+            return;
+        }
+        lastScan = time;
+
+        Entry pending;
+        while ((pending = PENDING.poll()) != null) {
+            TRACKED.add(pending);
+        }
+
+        if (!enabled) {
+            TRACKED.clear();
+            return;
+        }
+
+        final long threshold = PriorityAging.threshold;
+        final Priority ceiling = PriorityAging.ceiling;
+
+        for (int i = 0; i < TRACKED.size(); ++i) {
+            final Entry entry = TRACKED.get(i);
+
+            boolean remove;
+            try {
+                remove = entry.isDone() || entry.age(time, threshold, ceiling);
+            } catch (final Throwable thr) {
+                LOGGER.error("Failed to age priority of " + entry, thr);
+                remove = true;
+            }
+
+            if (remove) {
+                // swap remove, order does not matter
+                final int last = TRACKED.size() - 1;
+                TRACKED.set(i, TRACKED.get(last));
+                TRACKED.remove(last);
+                --i;
+            }
+        }
+    }
+
+    public static synchronized JsonObject getDebugJson() {
+        final JsonObject ret = new JsonObject();
+
+        ret.addProperty("enabled", enabled);
+        ret.addProperty("threshold_ms", TimeUnit.NANOSECONDS.toMillis(threshold));
+        ret.addProperty("ceiling", ceiling.name());
+        ret.addProperty("tracked", TRACKED.size() + PENDING.size());
+        ret.addProperty("total_raises", totalRaises);
+
+        return ret;
+    }
+
+    public static abstract class Entry {
+
+        private long lastRaise;
+
+        // returns null if the task is not waiting on a priority
+        protected abstract Priority getPriority();
+
+        protected abstract void raisePriority(final Priority priority);
+
+        protected abstract boolean isDone();
+
+        // returns true if the entry no longer needs to be tracked
+        private boolean age(final long time, final long threshold, final Priority ceiling) {
+            final Priority current = this.getPriority();
+            if (current == null || current == Priority.COMPLETING) {
+                return current == Priority.COMPLETING;
+            }
+            if (current.isHigherOrEqualPriority(ceiling)) {
+                // keep tracking, as the priority may still be lowered by its owner
+                this.lastRaise = time;
+                return false;
+            }
+            if (time - this.lastRaise < threshold) {
+                return false;
+            }
+
+            this.lastRaise = time;
+            this.raisePriority(Priority.getPriority(current.priority - 1));
+            ++totalRaises;
+
+            return false;
+        }
+    }
+
+    private PriorityAging() {}
+}
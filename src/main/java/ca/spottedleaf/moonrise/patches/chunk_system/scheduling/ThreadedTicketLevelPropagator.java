@@ -126,7 +126,7 @@ public abstract class ThreadedTicketLevelPropagator {
                                                      final List<NewChunkHolder> changedFullStatus);
 
     // must hold ticket lock for every position in the sections in one radius around sectionX,sectionZ
-    public boolean performUpdate(final int sectionX, final int sectionZ, final ReentrantAreaLock schedulingLock,
+    public boolean performUpdate(final int sectionX, final int sectionZ, final MonitoredAreaLock schedulingLock,
                                  final List<ChunkProgressionTask> scheduledTasks, final List<NewChunkHolder> changedFullStatus) {
         if (!this.hasPendingUpdates()) {
             return false;
@@ -149,7 +149,7 @@ public abstract class ThreadedTicketLevelPropagator {
     }
 
     private boolean performUpdate(final Section section, final UpdateQueue.UpdateQueueNode node, final Propagator propagator,
-                                  final ReentrantAreaLock ticketLock, final ReentrantAreaLock schedulingLock,
+                                  final MonitoredAreaLock ticketLock, final MonitoredAreaLock schedulingLock,
                                   final List<ChunkProgressionTask> scheduledTasks, final List<NewChunkHolder> changedFullStatus) {
         final int sectionX = section.sectionX;
         final int sectionZ = section.sectionZ;
@@ -340,7 +340,7 @@ public abstract class ThreadedTicketLevelPropagator {
         return ret;
     }
 
-    public boolean performUpdates(final ReentrantAreaLock ticketLock, final ReentrantAreaLock schedulingLock,
+    public boolean performUpdates(final MonitoredAreaLock ticketLock, final MonitoredAreaLock schedulingLock,
                                   final List<ChunkProgressionTask> scheduledTasks, final List<NewChunkHolder> changedFullStatus) {
         if (this.updateQueue.isEmpty()) {
             return false;
@@ -0,0 +1,186 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling;
+
+import ca.spottedleaf.moonrise.common.util.MoonriseCommon;
+import com.google.gson.JsonObject;
+import net.minecraft.server.level.ServerLevel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Divides the shared worker and I/O pools between worlds. Each world may be limited to a fraction of the threads,
+ * and each world may reserve a fraction of the threads, which then cannot be used by any other world while the
+ * reserving world has work queued.
+ * <p>
+ * A world's share of the worker pool is one budget for all of its worker executors. The budget is split between the
+ * executors which have work whenever the shares are updated, which each world does every tick
+ * (see {@link #splitBudget(int, boolean[], int[], int[])}).
+ * </p>
+ */
+public final class WorldExecutorShares {
+
+    private static volatile Map<String, Double> limits = Collections.emptyMap();
+    private static volatile Map<String, Double> reservations = Collections.emptyMap();
+
+    private static final Set<ChunkTaskScheduler> SCHEDULERS = ConcurrentHashMap.newKeySet();
+
+    public static void init(final Map<String, Double> limits, final Map<String, Double> reservations) {
+        WorldExecutorShares.limits = copyFractions(limits);
+        WorldExecutorShares.reservations = copyFractions(reservations);
+        updateAll();
+    }
+
+    private static Map<String, Double> copyFractions(final Map<String, Double> fractions) {
+        final Map<String, Double> ret = new HashMap<>(fractions.size());
+        for (final Map.Entry<String, Double> entry : fractions.entrySet()) {
+            final double fraction = entry.getValue().doubleValue();
+            if (!(fraction >= 0.0 && fraction <= 1.0)) {
+                throw new IllegalArgumentException("Fraction for world '" + entry.getKey() + "' must be in [0, 1]: " + fraction);
+            }
+            ret.put(entry.getKey(), Double.valueOf(fraction));
+        }
+        return ret;
+    }
+
+    /**
+     * Must be invoked once the scheduler is fully constructed.
+     */
+    public static void register(final ChunkTaskScheduler scheduler) {
+        SCHEDULERS.add(scheduler);
+        // reservations of the new world may shrink the share of every other world
+        updateAll();
+    }
+
+    static void unregister(final ChunkTaskScheduler scheduler) {
+        if (SCHEDULERS.remove(scheduler)) {
+            updateAll();
+        }
+    }
+
+    public static void updateAll() {
+        for (final ChunkTaskScheduler scheduler : SCHEDULERS) {
+            scheduler.updateExecutorShares();
+        }
+    }
+
+    private static String getKey(final ServerLevel world) {
+        return world.dimension().location().toString();
+    }
+
+    private static double getReservedByOthers(final ServerLevel world) {
+        final Map<String, Double> reservations = WorldExecutorShares.reservations;
+        if (reservations.isEmpty()) {
+            return 0.0;
+        }
+
+        final String key = getKey(world);
+        double ret = 0.0;
+        // only count worlds which have work, so that an idle or unloaded world does not hold threads hostage
+        for (final ChunkTaskScheduler scheduler : SCHEDULERS) {
+            final String other = getKey(scheduler.world);
+            if (other.equals(key) || !scheduler.hasQueuedWork()) {
+                continue;
+            }
+            final Double reservation = reservations.get(other);
+            if (reservation != null) {
+                ret += reservation.doubleValue();
+            }
+        }
+
+        return Math.min(1.0, ret);
+    }
+
+    /**
+     * Returns the fraction of the threads of either pool which the specified world may occupy.
+     */
+    public static double getShare(final ServerLevel world) {
+        final Double limit = limits.get(getKey(world));
+        return Math.max(0.0, Math.min(limit == null ? 1.0 : limit.doubleValue(), 1.0 - getReservedByOthers(world)));
+    }
+
+    /**
+     * Returns the max parallelism for an executor of the specified world, given the share of the world and the
+     * number of threads in the pool. A value of -1 indicates no limit.
+     */
+    public static int getMaxParallelism(final double share, final int threads) {
+        if (share >= 1.0) {
+            return -1;
+        }
+        // always allow one thread, otherwise the world cannot make progress at all
+        return Math.max(1, (int)Math.floor(share * (double)threads));
+    }
+
+    public static int getWorkerParallelism(final double share) {
+        return getMaxParallelism(share, MoonriseCommon.getActiveWorkerThreadCount());
+    }
+
+    public static int getIOParallelism(final double share) {
+        return getMaxParallelism(share, MoonriseCommon.getIOThreadCount());
+    }
+
+    /**
+     * Splits the budget of a world between its executors. Executors with work share the budget evenly, and an
+     * executor limited to one task at a time (a cap of 1, otherwise -1) leaves the rest of its share to the others.
+     * Idle executors receive a parallelism of 1, so that new work may start before the next split.
+     * <p>
+     * Every executor receives at least 1, so the sum exceeds the budget if more executors have work than the
+     * budget allows for.
+     * </p>
+     */
+    public static void splitBudget(final int budget, final boolean[] active, final int[] caps, final int[] out) {
+        int remaining = budget;
+        int shared = 0;
+
+        for (int i = 0; i < active.length; ++i) {
+            if (!active[i]) {
+                out[i] = 1;
+            } else if (caps[i] == 1) {
+                out[i] = 1;
+                --remaining;
+            } else {
+                out[i] = 0;
+                ++shared;
+            }
+        }
+
+        if (shared == 0) {
+            return;
+        }
+
+        remaining = Math.max(0, remaining);
+        final int base = remaining / shared;
+        int extra = remaining % shared;
+        for (int i = 0; i < active.length; ++i) {
+            if (out[i] != 0) {
+                continue;
+            }
+            if (extra > 0) {
+                --extra;
+                out[i] = base + 1;
+            } else {
+                out[i] = Math.max(1, base);
+            }
+        }
+    }
+
+    public static JsonObject getDebugJson(final ServerLevel world) {
+        final JsonObject ret = new JsonObject();
+
+        final Double limit = limits.get(getKey(world));
+        final Double reservation = reservations.get(getKey(world));
+        final double share = getShare(world);
+
+        ret.addProperty("limit", limit == null ? 1.0 : limit.doubleValue());
+        ret.addProperty("reservation", reservation == null ? 0.0 : reservation.doubleValue());
+        ret.addProperty("reserved_by_others", getReservedByOthers(world));
+        ret.addProperty("share", share);
+        ret.addProperty("worker_parallelism", getWorkerParallelism(share));
+        ret.addProperty("io_parallelism", getIOParallelism(share));
+
+        return ret;
+    }
+
+    private WorldExecutorShares() {}
+}
@@ -6,6 +6,7 @@ import ca.spottedleaf.concurrentutil.util.Priority;
 import ca.spottedleaf.moonrise.common.PlatformHooks;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunk;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.PreparedBlockEntities;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.poi.ChunkSystemPoiManager;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.poi.PoiChunk;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
@@ -26,9 +27,23 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ChunkFullTask.class);
 
+    private static volatile boolean prepareOffMain = true;
+
+    public static void setPrepareOffMain(final boolean prepareOffMain) {
+        ChunkFullTask.prepareOffMain = prepareOffMain;
+    }
+
+    public static boolean isPrepareOffMain() {
+        return prepareOffMain;
+    }
+
     private final NewChunkHolder chunkHolder;
     private final ChunkAccess fromChunk;
     private final PrioritisedExecutor.PrioritisedTask convertToFullTask;
+    // null if the chunk is not prepared off-main, in which case the convert task is queued directly
+    private final PrioritisedExecutor.PrioritisedTask prepareTask;
+    // written by the prepare task before it queues the convert task
+    private LevelChunk preparedChunk;
 
     public ChunkFullTask(final ChunkTaskScheduler scheduler, final ServerLevel world, final int chunkX, final int chunkZ,
                          final NewChunkHolder chunkHolder, final ChunkAccess fromChunk, final Priority priority) {
@@ -36,6 +51,30 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
         this.chunkHolder = chunkHolder;
         this.fromChunk = fromChunk;
         this.convertToFullTask = scheduler.createChunkTask(chunkX, chunkZ, this, priority);
+        // full chunks loaded from disk are already built, and their block entities are prepared by the load task
+        this.prepareTask = prepareOffMain && !(fromChunk instanceof ImposterProtoChunk)
+            ? scheduler.loadExecutor.createTask(this::prepare, priority) : null;
+    }
+
+    private void prepare() {
+        try {
+            // nothing else writes to the proto chunk once it has reached the status before full, so
+            // we can build the LevelChunk here and leave only the parts which are visible to the world to the main thread
+            final ServerLevel world = this.world;
+            final ProtoChunk protoChunk = (ProtoChunk)this.fromChunk;
+            final LevelChunk chunk = new LevelChunk(world, protoChunk, (final LevelChunk unused) -> {
+                PlatformHooks.get().postLoadProtoChunk(world, protoChunk);
+            });
+            ((ChunkSystemLevelChunk)chunk).moonrise$setPreparedBlockEntities(
+                PreparedBlockEntities.prepare(chunk, protoChunk.getBlockEntityNbts().values(), world.registryAccess())
+            );
+            this.preparedChunk = chunk;
+        } catch (final Throwable throwable) {
+            // the main thread will build the chunk instead
+            LOGGER.error("Failed to prepare full chunk off-main for task " + this.toString(), throwable);
+        }
+
+        this.convertToFullTask.queue();
     }
 
     @Override
@@ -61,6 +100,9 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
 
             if (this.fromChunk instanceof ImposterProtoChunk wrappedFull) {
                 chunk = wrappedFull.getWrapped();
+            } else if (this.preparedChunk != null) {
+                chunk = this.preparedChunk;
+                this.chunkHolder.replaceProtoChunk(new ImposterProtoChunk(chunk, false));
             } else {
                 final ServerLevel world = this.world;
                 final ProtoChunk protoChunk = (ProtoChunk)this.fromChunk;
@@ -75,8 +117,10 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
             final NewChunkHolder chunkHolder = this.chunkHolder;
 
             chunk.setFullStatus(chunkHolder::getChunkStatus);
+            final PreparedBlockEntities preparedBlockEntities = ((ChunkSystemLevelChunk)chunk).moonrise$takePreparedBlockEntities();
             try {
                 platformHooks.setCurrentlyLoading(this.chunkHolder.vanillaChunkHolder, chunk);
+                PreparedBlockEntities.setCurrent(preparedBlockEntities);
                 chunk.runPostLoad();
                 // Unlike Vanilla, we load the entity chunk here, as we load the NBT in empty status (unlike Vanilla)
                 // This brings entity addition back in line with older versions of the game
@@ -88,6 +132,11 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
                 chunk.setUnsavedListener(this.world.getChunkSource().chunkMap.worldGenContext.unsavedListener());
                 platformHooks.chunkFullStatusComplete(chunk, (ProtoChunk)this.fromChunk);
             } finally {
+                PreparedBlockEntities.setCurrent(null);
+                if (preparedBlockEntities != null) {
+                    // drop any block entity which was not taken
+                    preparedBlockEntities.clear();
+                }
                 platformHooks.setCurrentlyLoading(this.chunkHolder.vanillaChunkHolder, null);
             }
         } catch (final Throwable throwable) {
@@ -110,12 +159,20 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
         if ((boolean)SCHEDULED_HANDLE.getAndSet((ChunkFullTask)this, true)) {
             throw new IllegalStateException("Cannot double call schedule()");
         }
-        this.convertToFullTask.queue();
+        if (this.prepareTask != null) {
+            this.prepareTask.queue();
+        } else {
+            this.convertToFullTask.queue();
+        }
     }
 
     @Override
     public void cancel() {
+        // the convert task can be cancelled before the prepare task queues it, in which case the queue is a no-op
         if (this.convertToFullTask.cancel()) {
+            if (this.prepareTask != null) {
+                this.prepareTask.cancel();
+            }
             this.complete(null, null);
         }
     }
@@ -130,6 +187,9 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
         if (!Priority.isValidPriority(priority)) {
             throw new IllegalArgumentException("Invalid priority " + priority);
         }
+        if (this.prepareTask != null) {
+            this.prepareTask.lowerPriority(priority);
+        }
         this.convertToFullTask.lowerPriority(priority);
     }
 
@@ -138,6 +198,9 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
         if (!Priority.isValidPriority(priority)) {
             throw new IllegalArgumentException("Invalid priority " + priority);
         }
+        if (this.prepareTask != null) {
+            this.prepareTask.setPriority(priority);
+        }
         this.convertToFullTask.setPriority(priority);
     }
 
@@ -146,6 +209,9 @@ public final class ChunkFullTask extends ChunkProgressionTask implements Runnabl
         if (!Priority.isValidPriority(priority)) {
             throw new IllegalArgumentException("Invalid priority " + priority);
         }
+        if (this.prepareTask != null) {
+            this.prepareTask.raisePriority(priority);
+        }
         this.convertToFullTask.raisePriority(priority);
     }
 }
@@ -8,6 +8,8 @@ import ca.spottedleaf.concurrentutil.util.Priority;
 import ca.spottedleaf.moonrise.common.PlatformHooks;
 import ca.spottedleaf.moonrise.patches.chunk_system.ChunkSystemConverters;
 import ca.spottedleaf.moonrise.patches.chunk_system.io.MoonriseRegionFileIO;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.ChunkSystemLevelChunk;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.chunk.PreparedBlockEntities;
 import ca.spottedleaf.moonrise.patches.chunk_system.level.poi.PoiChunk;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.NewChunkHolder;
@@ -16,6 +18,8 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ImposterProtoChunk;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.ProtoChunk;
 import net.minecraft.world.level.chunk.UpgradeData;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
@@ -45,7 +49,7 @@ public final class ChunkLoadTask extends ChunkProgressionTask {
                          final NewChunkHolder chunkHolder, final Priority priority) {
         super(scheduler, world, chunkX, chunkZ);
         this.chunkHolder = chunkHolder;
-        this.loadTask = new ChunkDataLoadTask(scheduler, world, chunkX, chunkZ, priority);
+        this.loadTask = new ChunkDataLoadTask(scheduler, world, chunkX, chunkZ, chunkHolder, priority);
         this.loadTask.addCallback((final GenericDataLoadTask.TaskResult<ChunkAccess, Throwable> result) -> {
             ChunkLoadTask.this.loadResult = result; // must be before getAndDecrement
             ChunkLoadTask.this.tryCompleteLoad();
@@ -277,9 +281,18 @@ public final class ChunkLoadTask extends ChunkProgressionTask {
     private static record ReadChunk(ProtoChunk protoChunk, SerializableChunkData chunkData) {}
 
     private static final class ChunkDataLoadTask extends CallbackDataLoadTask<ReadChunk, ChunkAccess> {
+
+        private final NewChunkHolder chunkHolder;
+
         private ChunkDataLoadTask(final ChunkTaskScheduler scheduler, final ServerLevel world, final int chunkX,
-                                  final int chunkZ, final Priority priority) {
+                                  final int chunkZ, final NewChunkHolder chunkHolder, final Priority priority) {
             super(scheduler, world, chunkX, chunkZ, MoonriseRegionFileIO.RegionFileType.CHUNK_DATA, priority);
+            this.chunkHolder = chunkHolder;
+        }
+
+        private boolean isTargetFull() {
+            // racy read, but the prepared block entities are only an optimisation
+            return this.chunkHolder.getTicketLevel() <= ChunkTaskScheduler.getTicketLevel(ChunkStatus.FULL);
         }
 
         @Override
@@ -357,6 +370,15 @@ public final class ChunkLoadTask extends ChunkProgressionTask {
                     new ChunkPos(this.chunkX, this.chunkZ)
                 );
 
+                if (chunk instanceof ImposterProtoChunk imposter && ChunkFullTask.isPrepareOffMain() && this.isTargetFull()) {
+                    // the block entities of full chunks are otherwise created by the main thread during the full transition.
+                    // chunks which are only loaded for generation or lighting of their neighbours never need them
+                    final LevelChunk fullChunk = imposter.getWrapped();
+                    ((ChunkSystemLevelChunk)fullChunk).moonrise$setPreparedBlockEntities(
+                        PreparedBlockEntities.prepare(fullChunk, chunkData.blockEntities(), this.world.registryAccess())
+                    );
+                }
+
                 return new TaskResult<>(new ReadChunk(chunk, chunkData), null);
             } catch (final Throwable thr2) {
                 LOGGER.error("Failed to parse chunk data for task: " + this.toString() + ", chunk data will be lost", thr2);
@@ -36,6 +36,10 @@ public abstract class ChunkProgressionTask {
     // Used only for debug json
     public abstract boolean isScheduled();
 
+    public final boolean isCompleted() {
+        return this.completed;
+    }
+
     // Note: It is the responsibility of the task to set the chunk's status once it has completed
     public abstract ChunkStatus getTargetStatus();
 
@@ -34,6 +34,11 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
     private final StaticCache2D<GenerationChunkHolder> neighbours;
 
     private final PrioritisedExecutor.PrioritisedTask generateTask;
+    // set if FEATURES population turned out not to be parallel safe once the task ran, see run()
+    private volatile PrioritisedExecutor.PrioritisedTask exclusiveTask;
+    // the priority of the task is invalid while it executes, so the priority for the exclusive task is tracked here
+    private volatile Priority priority;
+    private final boolean checkPopulation;
 
     public ChunkUpgradeGenericStatusTask(final ChunkTaskScheduler scheduler, final ServerLevel world, final int chunkX,
                                          final int chunkZ, final ChunkAccess chunk, final StaticCache2D<GenerationChunkHolder> neighbours,
@@ -46,18 +51,31 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
         this.fromStatus = chunk.getPersistedStatus();
         this.toStatus = toStatus;
         this.neighbours = neighbours;
+        this.priority = priority;
         if (((ChunkSystemChunkStatus)this.toStatus).moonrise$isParallelCapable()) {
-            this.generateTask = this.scheduler.parallelGenExecutor.createTask(this, priority);
+            this.checkPopulation = false;
+            this.generateTask = this.scheduler.parallelGenExecutor.createTask(
+                GenerationTaskBatcher.isBatchable(this.toStatus) ? this::runBatch : this, priority
+            );
         } else {
             final int writeRadius = ((ChunkSystemChunkStatus)this.toStatus).moonrise$getWriteRadius();
+            final boolean generation = !this.fromStatus.isOrAfter(this.toStatus);
             if (writeRadius < 0) {
+                this.checkPopulation = false;
                 this.generateTask = this.scheduler.radiusAwareScheduler.createInfiniteRadiusTask(this, priority);
             } else {
+                // the population filter scans the whole write radius, which is too slow for the scheduling lock
+                this.checkPopulation = ChunkTaskScheduler.needsPopulationCheck(this.toStatus, generation);
                 this.generateTask = this.scheduler.radiusAwareScheduler.createTask(chunkX, chunkZ, writeRadius, this, priority);
             }
         }
     }
 
+    private PrioritisedExecutor.PrioritisedTask getTask() {
+        final PrioritisedExecutor.PrioritisedTask exclusiveTask = this.exclusiveTask;
+        return exclusiveTask == null ? this.generateTask : exclusiveTask;
+    }
+
     @Override
     public ChunkStatus getTargetStatus() {
         return this.toStatus;
@@ -69,8 +87,37 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
         return (generation && ((ChunkSystemChunkStatus)this.toStatus).moonrise$isEmptyGenStatus()) || (!generation && ((ChunkSystemChunkStatus)this.toStatus).moonrise$isEmptyLoadStatus());
     }
 
+    private void runBatch() {
+        for (final ChunkUpgradeGenericStatusTask task : this.scheduler.generationTaskBatcher.takeBatch(this)) {
+            if (task == this) {
+                this.run();
+                continue;
+            }
+            // if the cancel fails, then the task is either cancelled or being executed elsewhere
+            if (task.generateTask.cancel()) {
+                task.run();
+            }
+        }
+    }
+
     @Override
     public void run() {
+        if (this.checkPopulation && this.exclusiveTask == null && ChunkTaskScheduler.isExclusivePopulation(
+            this.world, this.fromChunk, ((ChunkSystemChunkStatus)this.toStatus).moonrise$getWriteRadius())) {
+            // population touching anything not known to be parallel safe must not run alongside any other task,
+            // so release the write radius and run again once nothing else is running
+            final Priority priority = this.priority;
+            final PrioritisedExecutor.PrioritisedTask exclusiveTask = this.scheduler.radiusAwareScheduler.createInfiniteRadiusTask(this, priority);
+            this.exclusiveTask = exclusiveTask;
+            // priority changes made before the exclusive task was published only updated the executing task
+            final Priority current = this.priority;
+            if (current != priority) {
+                exclusiveTask.setPriority(current);
+            }
+            exclusiveTask.queue();
+            return;
+        }
+
         final ChunkAccess chunk = this.fromChunk;
 
         final ServerChunkCache serverChunkCache = this.world.getChunkSource();
@@ -176,20 +223,26 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
                 this.run();
             }
         } else {
+            if (GenerationTaskBatcher.isBatchable(this.toStatus)) {
+                this.scheduler.generationTaskBatcher.add(this);
+            }
             this.generateTask.queue();
         }
     }
 
     @Override
     public void cancel() {
-        if (this.generateTask.cancel()) {
+        if (this.getTask().cancel()) {
+            if (GenerationTaskBatcher.isBatchable(this.toStatus)) {
+                this.scheduler.generationTaskBatcher.remove(this);
+            }
             this.complete(null, null);
         }
     }
 
     @Override
     public Priority getPriority() {
-        return this.generateTask.getPriority();
+        return this.getTask().getPriority();
     }
 
     @Override
@@ -197,7 +250,11 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
         if (!Priority.isValidPriority(priority)) {
             throw new IllegalArgumentException("Invalid priority " + priority);
         }
-        this.generateTask.lowerPriority(priority);
+        final Priority current = this.priority;
+        if (priority.isLowerPriority(current)) {
+            this.priority = priority;
+        }
+        this.getTask().lowerPriority(priority);
     }
 
     @Override
@@ -205,7 +262,8 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
         if (!Priority.isValidPriority(priority)) {
             throw new IllegalArgumentException("Invalid priority " + priority);
         }
-        this.generateTask.setPriority(priority);
+        this.priority = priority;
+        this.getTask().setPriority(priority);
     }
 
     @Override
@@ -213,6 +271,10 @@ public final class ChunkUpgradeGenericStatusTask extends ChunkProgressionTask im
         if (!Priority.isValidPriority(priority)) {
             throw new IllegalArgumentException("Invalid priority " + priority);
         }
-        this.generateTask.raisePriority(priority);
+        final Priority current = this.priority;
+        if (priority.isHigherPriority(current)) {
+            this.priority = priority;
+        }
+        this.getTask().raisePriority(priority);
     }
 }
@@ -0,0 +1,99 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.scheduling.task;
+
+import ca.spottedleaf.moonrise.common.util.CoordinateUtils;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups queued generation tasks for the same status by small square cells of chunks, so that the worker which
+ * executes one of them may execute the rest of the cell as well. This keeps the noise/biome caches of the worker
+ * warm for adjacent chunks, rather than spreading adjacent chunks across every worker.
+ */
+public final class GenerationTaskBatcher {
+
+    // 4x4 cells, which also caps the batch size so that a batch does not hold up higher priority tasks for long
+    private static final int CELL_SHIFT = 2;
+    private static final int CELL_MASK = (1 << CELL_SHIFT) - 1;
+    public static final int MAX_BATCH_SIZE = 1 << (2 * CELL_SHIFT);
+
+    private final Long2ReferenceOpenHashMap<ReferenceOpenHashSet<ChunkUpgradeGenericStatusTask>>[] cellsByStatus;
+
+    public GenerationTaskBatcher() {
+        this.cellsByStatus = new Long2ReferenceOpenHashMap[ChunkStatus.getStatusList().size()];
+        for (int i = 0; i < this.cellsByStatus.length; ++i) {
+            this.cellsByStatus[i] = new Long2ReferenceOpenHashMap<>();
+        }
+    }
+
+    public static boolean isBatchable(final ChunkStatus status) {
+        // only parallel safe statuses which read nothing from their neighbours, so the order of execution does not matter
+        return status == ChunkStatus.NOISE || status == ChunkStatus.SURFACE || status == ChunkStatus.CARVERS;
+    }
+
+    private static long getCellKey(final ChunkUpgradeGenericStatusTask task) {
+        return CoordinateUtils.getChunkKey(task.chunkX >> CELL_SHIFT, task.chunkZ >> CELL_SHIFT);
+    }
+
+    private static int getMortonIndex(final ChunkUpgradeGenericStatusTask task) {
+        final int x = task.chunkX & CELL_MASK;
+        final int z = task.chunkZ & CELL_MASK;
+
+        int ret = 0;
+        for (int i = 0; i < CELL_SHIFT; ++i) {
+            ret |= ((x >>> i) & 1) << (2 * i);
+            ret |= ((z >>> i) & 1) << (2 * i + 1);
+        }
+        return ret;
+    }
+
+    void add(final ChunkUpgradeGenericStatusTask task) {
+        final Long2ReferenceOpenHashMap<ReferenceOpenHashSet<ChunkUpgradeGenericStatusTask>> cells = this.cellsByStatus[task.getTargetStatus().getIndex()];
+        synchronized (this) {
+            cells.computeIfAbsent(getCellKey(task), (final long keyInMap) -> {
+                return new ReferenceOpenHashSet<>();
+            }).add(task);
+        }
+    }
+
+    void remove(final ChunkUpgradeGenericStatusTask task) {
+        final Long2ReferenceOpenHashMap<ReferenceOpenHashSet<ChunkUpgradeGenericStatusTask>> cells = this.cellsByStatus[task.getTargetStatus().getIndex()];
+        final long key = getCellKey(task);
+        synchronized (this) {
+            final ReferenceOpenHashSet<ChunkUpgradeGenericStatusTask> cell = cells.get(key);
+            if (cell != null && cell.remove(task) && cell.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the tasks queued in the same cell as the specified task, including the task itself, in
+     * Morton order. The caller must try to cancel each returned task (other than the specified task) before
+     * executing it, as the task may already be executing on another worker.
+     */
+    List<ChunkUpgradeGenericStatusTask> takeBatch(final ChunkUpgradeGenericStatusTask task) {
+        final Long2ReferenceOpenHashMap<ReferenceOpenHashSet<ChunkUpgradeGenericStatusTask>> cells = this.cellsByStatus[task.getTargetStatus().getIndex()];
+
+        final ReferenceOpenHashSet<ChunkUpgradeGenericStatusTask> cell;
+        synchronized (this) {
+            cell = cells.remove(getCellKey(task));
+        }
+
+        final List<ChunkUpgradeGenericStatusTask> ret = new ArrayList<>(cell == null ? 1 : cell.size() + 1);
+        if (cell != null) {
+            ret.addAll(cell);
+        }
+        if (cell == null || !cell.contains(task)) {
+            ret.add(task);
+        }
+
+        ret.sort((final ChunkUpgradeGenericStatusTask t1, final ChunkUpgradeGenericStatusTask t2) -> {
+            return Integer.compare(getMortonIndex(t1), getMortonIndex(t2));
+        });
+
+        return ret;
+    }
+}
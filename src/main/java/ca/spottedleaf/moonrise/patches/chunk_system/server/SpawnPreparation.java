@@ -0,0 +1,82 @@
+package ca.spottedleaf.moonrise.patches.chunk_system.server;
+
+import ca.spottedleaf.concurrentutil.util.Priority;
+import ca.spottedleaf.moonrise.patches.chunk_system.level.ChunkSystemServerLevel;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
+import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkTaskScheduler;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.ForcedChunksSavedData;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces the wait for the whole spawn area during server startup. The forced chunks of every world are requested
+ * at once, and startup only waits for the chunks a new player may spawn in, while the rest of the spawn area
+ * loads in the background.
+ */
+public final class SpawnPreparation {
+
+    // holds the chunks new players may spawn in, in case the spawn area does not cover them
+    public static final TicketType<Long> SPAWN_PREPARATION = TicketType.create("chunk_system:spawn_preparation", Long::compareTo, 60 * 20);
+    private static final AtomicLong SPAWN_PREPARATION_IDS = new AtomicLong();
+
+    private static volatile boolean enabled = true;
+
+    public static void init(final boolean enabled) {
+        SpawnPreparation.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Schedules the startup chunk loads of every world, and returns a flag which is set on the main thread once the
+     * chunks new players spawn in are loaded.
+     */
+    public static AtomicBoolean start(final MinecraftServer server) {
+        for (final ServerLevel world : server.getAllLevels()) {
+            // Vanilla adds these after the spawn area is ready, which is fine to repeat as the tickets are identical
+            final ForcedChunksSavedData forcedChunks = world.getDataStorage().get(ForcedChunksSavedData.factory(), "chunks");
+            if (forcedChunks == null) {
+                continue;
+            }
+            for (final LongIterator iterator = forcedChunks.getChunks().iterator(); iterator.hasNext();) {
+                world.getChunkSource().updateChunkForced(new ChunkPos(iterator.nextLong()), true);
+            }
+        }
+
+        final AtomicBoolean ret = new AtomicBoolean();
+
+        final ServerLevel overworld = server.overworld();
+        final BlockPos spawn = overworld.getSharedSpawnPos();
+        // see PlayerRespawnLogic, new players are placed randomly within the spawn radius
+        final int radiusBlocks = Math.max(0, server.getSpawnRadius(overworld));
+
+        final ChunkHolderManager chunkHolderManager = ((ChunkSystemServerLevel)overworld).moonrise$getChunkTaskScheduler().chunkHolderManager;
+        final int ticketLevel = ChunkTaskScheduler.getTicketLevel(ChunkStatus.FULL);
+        final Long identifier = Long.valueOf(SPAWN_PREPARATION_IDS.getAndIncrement());
+
+        ((ChunkSystemServerLevel)overworld).moonrise$loadChunksAsync(
+            spawn, radiusBlocks, ChunkStatus.FULL, Priority.HIGHER,
+            (final List<ChunkAccess> chunks) -> {
+                for (int i = 0, len = chunks.size(); i < len; ++i) {
+                    chunkHolderManager.addTicketAtLevel(SPAWN_PREPARATION, chunks.get(i).getPos(), ticketLevel, identifier);
+                }
+                ret.set(true);
+            }
+        );
+
+        return ret;
+    }
+
+    private SpawnPreparation() {}
+}
@@ -2,8 +2,8 @@ package ca.spottedleaf.moonrise.patches.chunk_system.ticket;
 
 public interface ChunkSystemTicket<T> {
 
-    public long moonrise$getRemoveDelay();
+    public long moonrise$getExpireTick();
 
-    public void moonrise$setRemoveDelay(final long removeDelay);
+    public void moonrise$setExpireTick(final long expireTick);
 
 }
@@ -55,6 +55,7 @@ public final class SWMRNibbleArray {
     protected byte[] storageUpdating;
     protected boolean updatingDirty; // only returns whether storageUpdating is dirty
     protected volatile byte[] storageVisible;
+    protected boolean visibleShared; // whether storageVisible has been handed out by getSaveState, guarded by this
 
     public SWMRNibbleArray() {
         this(null, false); // lazy init
@@ -142,7 +143,9 @@ public final class SWMRNibbleArray {
             if (zero) {
                 return state == INIT_STATE_INIT ? new SaveState(null, INIT_STATE_UNINIT) : null;
             } else {
-                return new SaveState(data.clone(), state);
+                // the visible array is only written to by updateVisible, which will not write to it once shared
+                this.visibleShared = true;
+                return new SaveState(data, state);
             }
         }
     }
@@ -333,9 +336,15 @@ public final class SWMRNibbleArray {
         synchronized (this) {
             if (this.stateUpdating == INIT_STATE_NULL || this.stateUpdating == INIT_STATE_UNINIT) {
                 this.storageVisible = null;
+                this.visibleShared = false;
             } else {
                 if (this.storageVisible == null) {
                     this.storageVisible = this.storageUpdating.clone();
+                    this.visibleShared = false;
+                } else if (this.visibleShared && this.storageUpdating != this.storageVisible) {
+                    // do not write into the array held by a save state, adopt the updating array instead
+                    this.storageVisible = this.storageUpdating;
+                    this.visibleShared = false;
                 } else {
                     if (this.storageUpdating != this.storageVisible) {
                         System.arraycopy(this.storageUpdating, 0, this.storageVisible, 0, ARRAY_SIZE);